@@ -1,6 +1,9 @@
 import game.GameProperties;
 import game.GameRules;
 import player.Player;
+import player.ai.OpeningBook;
+import player.ai.SearchBenchmark;
+import player.ai.SearchProperties;
 import player.ai.genetic.Genome;
 import player.ai.genetic.GenomeLoader;
 import player.ai.genetic.TrainingGround;
@@ -10,6 +13,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Objects;
 
@@ -43,6 +47,8 @@ public class Client {
      *   <li>Start runtime timer.</li>
      *   <li>Load the fittest genome and competing genomes from files.</li>
      *   <li>If GAME_MODE==3, initialize and run a {@link TrainingGround} in supervised mode.</li>
+     *   <li>If GAME_MODE==6, compare the search modes with a {@link SearchBenchmark}.</li>
+     *   <li>If GAME_MODE==7, build the {@link OpeningBook} for the fittest genome.</li>
      *   <li>Otherwise, initialize a {@link GameRules} instance and either run a benchmark
      *       suite (modes 4/5) or a single interactive game.</li>
      *   <li>Print elapsed runtime in seconds to standard output.</li>
@@ -81,6 +87,18 @@ public class Client {
                 TrainingSupervisor supervisor = new TrainingSupervisor(trainingGround);
                 supervisor.start();
                 trainingGround.train();
+            } else if (GameProperties.GAME_MODE == 6) { // SEARCH BENCHMARK
+
+                // Fixed-depth searches of a seeded position suite, sequential vs parallel search modes
+                SearchBenchmark.run(fittestGenome);
+            } else if (GameProperties.GAME_MODE == 7) { // BUILD OPENING BOOK
+
+                // Search all early positions with the fittest genome and write them to the book file
+                try {
+                    OpeningBook.build(fittestGenome, SearchProperties.BOOK_PLIES, SearchProperties.BOOK_DEPTH, Path.of(SearchProperties.OPENING_BOOK_FILE));
+                } catch (IOException | InterruptedException e) {
+                    e.printStackTrace();
+                }
             } else { // NON-TRAINING MODES (game or benchmark)
 
                 GameRules game  = new GameRules(genome1, genome2);
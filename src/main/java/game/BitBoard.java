@@ -0,0 +1,292 @@
+package game;
+
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
+
+/**
+ * Bitboard layout and kernels shared by all bitboard code: a position is stored in two {@code long} bitboards
+ * instead of a matrix of {@link Board.Token} objects.
+ * <p>
+ * Bit layout: every column occupies {@code ROWS + 1} consecutive bits, starting with column 0 at
+ * bit 0. Inside a column the bottom row is the lowest bit; the additional top bit is a sentinel that
+ * always stays empty and keeps shifts from wrapping into the neighbouring column. On the default board:
+ * <pre>
+ *   .  .  .  .  .  .  .      sentinel row
+ *   5 12 19 26 33 40 47
+ *   4 11 18 25 32 39 46
+ *   3 10 17 24 31 38 45
+ *   2  9 16 23 30 37 44
+ *   1  8 15 22 29 36 43
+ *   0  7 14 21 28 35 42
+ * </pre>
+ * Boards whose sentinel layout does not fit into 64 bits (e.g. 8x8 or 9x7, see {@link GameProperties#ROWS})
+ * use a dense layout of {@code ROWS} bits per column instead. The dense kernels mask the start cells of
+ * every line so shifts cannot wrap; which kernel runs is fixed by {@link #SENTINEL} when the class is loaded.
+ * <p>
+ * One bitboard per player holds that player's tokens, the height mask holds all occupied cells.
+ * Placing a token, removing a token and win detection are a handful of shifts and masks and
+ * do not allocate. The bitboards are kept in a {@link GameState}; the static helpers of this class
+ * define the layout and the line kernels for all bitboard code.
+ * <p>
+ * This class cannot be instantiated.
+ */
+public class BitBoard {
+
+    /**
+     * Whether the board fits into 64 bits with a sentinel bit per column. If {@code false}, the dense layout is used.
+     */
+    public static final boolean SENTINEL = (ROWS + 1) * COLS <= Long.SIZE;
+
+    /**
+     * Number of bits reserved per column (one sentinel bit on top of the playable rows in the sentinel layout).
+     */
+    public static final int H1 = SENTINEL ? ROWS + 1 : ROWS;
+
+    /**
+     * Mask of the bottom cell of every column.
+     */
+    public static final long BOTTOM_MASK;
+
+    /**
+     * Mask of all playable cells (sentinel bits excluded).
+     */
+    public static final long BOARD_MASK;
+
+    /**
+     * Mask of all cells on odd rows, counted 1-based from the bottom (0-based rows 0, 2, 4, ...).
+     */
+    public static final long ODD_ROWS_MASK;
+
+    /**
+     * Mask of all cells on even rows, counted 1-based from the bottom (0-based rows 1, 3, 5, ...).
+     */
+    public static final long EVEN_ROWS_MASK;
+
+    /**
+     * Bit distance of neighbouring cells for the vertical, horizontal, diagonal up and diagonal down direction.
+     */
+    private static final int[] SHIFTS = {1, H1, H1 + 1, H1 - 1};
+
+    /**
+     * Per entry of {@link #SHIFTS}: cells from which a line of four in that direction stays on the board.
+     * Only used by the dense kernels.
+     */
+    private static final long[] LINE_STARTS = new long[SHIFTS.length];
+
+
+
+    // Static initializer validates that the board fits into a long and builds the column masks.
+    static {
+        if (ROWS < 4 || COLS < 4) {
+            throw new IllegalStateException(String.format("board of %dx%d is smaller than 4x4", ROWS, COLS));
+        }
+        if (ROWS * COLS > Long.SIZE) {
+            throw new IllegalStateException(String.format("board of %dx%d does not fit into a 64 bit bitboard", ROWS, COLS));
+        }
+
+        long bottom = 0L;
+        for (int col = 0; col < COLS; col++) {
+            bottom |= 1L << (col * H1);
+        }
+        BOTTOM_MASK = bottom;
+        BOARD_MASK = BOTTOM_MASK * ((1L << ROWS) - 1);
+
+        long oddRows = 0L;
+        for (int row = 0; row < ROWS; row += 2) {
+            oddRows |= BOTTOM_MASK << row;
+        }
+        ODD_ROWS_MASK = oddRows;
+        EVEN_ROWS_MASK = BOARD_MASK & ~ODD_ROWS_MASK;
+
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+        for (int i = 0; i < directions.length; i++) {
+            for (int row = 0; row < ROWS; row++) {
+                for (int col = 0; col < COLS; col++) {
+                    int endRow = row + 3 * directions[i][0];
+                    int endCol = col + 3 * directions[i][1];
+                    if (endRow >= 0 && endRow < ROWS && endCol < COLS) {
+                        LINE_STARTS[i] |= 1L << bitIndex(row, col);
+                    }
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private BitBoard() {}
+
+
+
+    /**
+     * Checks whether a bitboard contains four aligned tokens. For each direction the board is
+     * shifted against itself twice: the first step marks pairs, the second step marks two
+     * adjacent pairs, i.e. four in a row.
+     * <ul>
+     *   <li>{@code 1}        — vertical</li>
+     *   <li>{@code H1}       — horizontal</li>
+     *   <li>{@code H1 + 1}   — diagonal up</li>
+     *   <li>{@code H1 - 1}   — diagonal down</li>
+     * </ul>
+     *
+     * @param bitboard the tokens of one player
+     * @return {@code true} if the bitboard contains a line of four
+     */
+    public static boolean hasFourInARow(long bitboard) {
+        if (!SENTINEL) {
+            return hasFourInARowDense(bitboard);
+        }
+
+        long m = bitboard & (bitboard >> 1);
+        if ((m & (m >> 2)) != 0) {
+            return true;
+        }
+        m = bitboard & (bitboard >> H1);
+        if ((m & (m >> 2 * H1)) != 0) {
+            return true;
+        }
+        m = bitboard & (bitboard >> (H1 + 1));
+        if ((m & (m >> 2 * (H1 + 1))) != 0) {
+            return true;
+        }
+        m = bitboard & (bitboard >> (H1 - 1));
+        return (m & (m >> 2 * (H1 - 1))) != 0;
+    }
+
+    /**
+     * Dense layout variant of {@link #hasFourInARow(long)}: without sentinel bits a line is only
+     * accepted if it starts on a cell from which it stays on the board.
+     *
+     * @param bitboard the tokens of one player
+     * @return {@code true} if the bitboard contains a line of four
+     */
+    private static boolean hasFourInARowDense(long bitboard) {
+        for (int i = 0; i < SHIFTS.length; i++) {
+            int shift = SHIFTS[i];
+            if ((LINE_STARTS[i] & bitboard & (bitboard >>> shift) & (bitboard >>> 2 * shift) & (bitboard >>> 3 * shift)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the threat cells of a player: empty cells that would complete a line of four for the player
+     * if the player's token stood there, whether or not the cell can be played yet. For each direction the
+     * tokens are shifted so that three aligned tokens mark the cell before, between or after them.
+     *
+     * @param stones the tokens of the player
+     * @param mask   all occupied cells
+     * @return bitboard of the player's threat cells
+     */
+    public static long threatCells(long stones, long mask) {
+        if (!SENTINEL) {
+            return threatCellsDense(stones) & ~mask;
+        }
+
+        // vertical: only the cell on top of three tokens
+        long threats = (stones << 1) & (stones << 2) & (stones << 3);
+
+        threats |= directionThreats(stones, H1);         // horizontal
+        threats |= directionThreats(stones, H1 + 1);     // diagonal up
+        threats |= directionThreats(stones, H1 - 1);     // diagonal down
+        return threats & BOARD_MASK & ~mask;
+    }
+
+    /**
+     * Marks the cells completing three aligned tokens along one direction: before, after or in
+     * either gap of the line.
+     *
+     * @param stones the tokens of the player
+     * @param shift  bit distance of neighbouring cells in the direction
+     * @return cells completing a line of four in the direction (not yet masked to empty cells)
+     */
+    private static long directionThreats(long stones, int shift) {
+        long pair = (stones << shift) & (stones << 2 * shift);
+        long threats = pair & (stones << 3 * shift);
+        threats |= pair & (stones >>> shift);
+        pair = (stones >>> shift) & (stones >>> 2 * shift);
+        threats |= pair & (stones << shift);
+        threats |= pair & (stones >>> 3 * shift);
+        return threats;
+    }
+
+    /**
+     * Dense layout variant of {@link #threatCells(long, long)}: for every line start that keeps the line
+     * on the board, each of the four cells is marked if the other three hold a token.
+     *
+     * @param stones the tokens of the player
+     * @return cells completing a line of four (not yet masked to empty cells)
+     */
+    private static long threatCellsDense(long stones) {
+        long threats = 0L;
+        for (int i = 0; i < SHIFTS.length; i++) {
+            int shift = SHIFTS[i];
+            long starts = LINE_STARTS[i];
+            long first = stones;
+            long second = stones >>> shift;
+            long third = stones >>> 2 * shift;
+            long fourth = stones >>> 3 * shift;
+            threats |= starts & second & third & fourth;
+            threats |= (starts & first & third & fourth) << shift;
+            threats |= (starts & first & second & fourth) << 2 * shift;
+            threats |= (starts & first & second & third) << 3 * shift;
+        }
+        return threats & BOARD_MASK;
+    }
+
+    /**
+     * Returns the cells a token can be placed into next, i.e. the lowest empty cell of every column
+     * that is not full: empty cells that are either on the bottom row or on top of a token.
+     *
+     * @param mask all occupied cells
+     * @return bitboard of the playable cells
+     */
+    public static long playableCells(long mask) {
+        return ((mask << 1) | BOTTOM_MASK) & ~mask & BOARD_MASK;
+    }
+
+    /**
+     * Returns the mask of the bottom cell of a column.
+     *
+     * @param innerCol 0-based column index
+     * @return single-bit mask of the bottom cell
+     */
+    public static long bottomMask(int innerCol) {
+        return 1L << (innerCol * H1);
+    }
+
+    /**
+     * Returns the mask of the topmost playable cell of a column.
+     *
+     * @param innerCol 0-based column index
+     * @return single-bit mask of the top cell
+     */
+    public static long topMask(int innerCol) {
+        return 1L << (innerCol * H1 + ROWS - 1);
+    }
+
+    /**
+     * Returns the mask of all playable cells of a column.
+     *
+     * @param innerCol 0-based column index
+     * @return mask of the column's cells
+     */
+    public static long columnMask(int innerCol) {
+        return ((1L << ROWS) - 1) << (innerCol * H1);
+    }
+
+    /**
+     * Returns the bit index of a cell in the bitboard layout.
+     *
+     * @param row 0-based row index (0 = bottom)
+     * @param col 0-based column index
+     * @return bit index of the cell
+     */
+    public static int bitIndex(int row, int col) {
+        return col * H1 + row;
+    }
+}
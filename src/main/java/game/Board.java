@@ -2,9 +2,7 @@ package game;
 
 import player.Player;
 
-import java.util.Arrays;
 import java.util.Objects;
-import java.util.Stack;
 
 import static game.GameProperties.COLS;
 import static game.GameProperties.ROWS;
@@ -12,9 +10,14 @@ import static game.GameProperties.ROWS;
 /**
  * Represents the game board for a two-dimensional, column-based token game.
  * <p>
- * The board is internally represented as a ROWS x COLS matrix of {@link Token} objects.
+ * The position itself — tokens, heights, move history, hashes, threat counters and the result — is kept
+ * in a {@link GameState}, which identifies players by side index ({@code id - 1}). The board maps these
+ * sides to the {@link Player} objects and additionally maintains a ROWS x COLS matrix of {@link Token}
+ * objects for printing. Token instances are reused, so placing and removing tokens does not allocate
+ * once every cell has been visited by both players.
  * This class provides methods to place and remove tokens, inspect win conditions,
- * compute threat heuristics for a player, and print the current board state.
+ * compute threat heuristics for a player, print the current board state and fork the position
+ * via {@link #snapshot(Player)}.
  * <p>
  * Threading and concurrency are not considered — this class is not synchronized.
  */
@@ -25,38 +28,13 @@ public class Board {
     private static final String printBottom;
 
     private final Token[][] board = new Token[ROWS][COLS];
-    private Stack<Token> winningConditions = new Stack<>();
-    private int[] currentHeightMap = new int[COLS];
+    private final Token[][][] tokenCache = new Token[2][ROWS][COLS];
+    private final Player[] players = new Player[2];
+    private final GameState state = new GameState();
 
-    private int heightSum = 0;
-    private boolean isGameFinished = false;
-    private Player hasWon = null;
 
-    /**
-     * Direction vectors used for line inspection.
-     * Each entry is a pair {deltaRow, deltaCol}:
-     * <ul>
-     *   <li>{0, 1}   — horizontal (right)</li>
-     *   <li>{1, 0}   — vertical (up)</li>
-     *   <li>{1, 1}   — diagonal up-right</li>
-     *   <li>{1, -1}  — diagonal up-left</li>
-     * </ul>
-     */
-    private static final int[][] directions = {
-            {0, 1},     //horizontal
-            {1, 0},     //vertical
-            {1, 1},     //diagonal up
-            {1, -1},    //diagonal down
-    };
-
-    private static final int winSectorRowsMin;
-    private static final int winSectorRowsMax;
-    private static final int winSectorColsMin;
-    private static final int winSectorColsMax;
 
-
-
-    // Static initializer builds the printable separators and determines the win-sector bounds based on board dimensions.
+    // Static initializer builds the printable separators based on board dimensions.
     static {
         StringBuilder sb = new StringBuilder();
         sb.append("----");
@@ -89,13 +67,6 @@ public class Board {
         }
         sb.append(String.format("%n"));
         printBottom = sb.toString();
-
-        boolean sizeRows = ROWS > 6;
-        winSectorRowsMin = sizeRows ? 3 : 2;
-        winSectorRowsMax = sizeRows ? ROWS - 4 : 2;
-        boolean sizeCols = COLS > 6;
-        winSectorColsMin = sizeCols ? 3 : 2;
-        winSectorColsMax = sizeCols ? COLS - 4 : 2;
     }
 
 
@@ -124,16 +95,12 @@ public class Board {
     }
 
     /**
-     * Resets the board to an initial empty state. Clears tokens, resets
-     * column heights, stack of winning-condition tokens, and game state flags.
+     * Resets the board to an initial empty state. Clears tokens and resets the underlying
+     * {@link GameState} (column heights, move history, position hashes, threat counters and result).
      */
     public void resetBoard(){
         clearBoard();
-        this.winningConditions = new Stack<>();
-        this.currentHeightMap = new int[COLS];
-        this.heightSum = 0;
-        this.isGameFinished = false;
-        this.hasWon = null;
+        this.state.reset();
     }
 
     /**
@@ -152,10 +119,9 @@ public class Board {
     /**
      * Attempts to place a token into the specified 1-based column on behalf of the given player.
      * <p>
-     * The token will land on top of the current stack in that column and the player's internal
-     * token list will be updated via {@code owner.addToken(placedToken)}.
-     * If the placed token falls within the precomputed win sector, it is appended to {@link #winningConditions}
-     * for later win evaluation. The method updates internal counters and triggers a win/full check.
+     * The token will land on top of the current stack in that column. The move is applied to the
+     * underlying {@link GameState}, which records it in the move history, updates the position hashes and
+     * threat counters and checks for a win or a full board.
      *
      * @param col   1-based column index where the token should be placed (valid range: 1 .. COLS)
      * @param owner the player placing the token
@@ -163,25 +129,18 @@ public class Board {
      *         or the column is already full
      */
     public boolean placeToken(int col, Player owner) {
-        if (col < 1 || col > COLS || currentHeightMap[col - 1] > ROWS - 1) {
+        if (!state.canPlay(col)) {
             return false;
         }
 
         int innerCol = col - 1;
-        int innerRow = currentHeightMap[innerCol];
+        int innerRow = state.getHeight(col);
+        int side = owner.getID() - 1;
 
-        Token placedToken = new Token(owner, owner.getToken(), innerRow, innerCol);
-        owner.addToken(placedToken);
+        players[side] = owner;
+        board[innerRow][innerCol] = getCachedToken(owner, innerRow, innerCol);
 
-        board[innerRow][innerCol] = placedToken;
-        if ((innerRow >= winSectorRowsMin && innerRow <= winSectorRowsMax) || (innerCol >= winSectorColsMin && innerCol <= winSectorColsMax)) {
-            winningConditions.add(placedToken);
-        }
-
-        currentHeightMap[innerCol]++;
-        heightSum++;
-
-        checkGameIsFinished();
+        state.play(col, side);
         return true;
     }
 
@@ -189,43 +148,47 @@ public class Board {
      * Removes the topmost token from the specified 1-based column.
      * <p>
      * The method assumes the column contains at least one token; callers should ensure
-     * the operation is legal. The token's owner will be instructed to remove the last token
-     * from their internal storage, and board state is updated accordingly.
+     * the operation is legal. The move is taken back in the underlying {@link GameState}.
      *
      * @param col 1-based column index from which to remove the top token
      */
     public void removeToken(int col) {
         int innerCol = col - 1;
-        int innerRow = currentHeightMap[innerCol] - 1;
-
-        Token token = board[innerRow][innerCol];
-        token.owner.removeLastToken();
+        int innerRow = state.getHeight(col) - 1;
 
         board[innerRow][innerCol] = BLANKSPACE;
-        if ((innerRow >= winSectorRowsMin && innerRow <= winSectorRowsMax) || (innerCol >= winSectorColsMin && innerCol <= winSectorColsMax)) {
-            winningConditions.removeLast();
-        }
 
-        currentHeightMap[innerCol]--;
-        heightSum--;
-        hasWon = null;
+        state.undo(col);
+    }
+
+    /**
+     * Returns whether the game has finished.
+     *
+     * @return {@code true} if the game ended by a win, a full board or a forced draw; {@code false} otherwise
+     */
+    public boolean getIsGameFinished() {
+        return state.isFinished();
     }
 
     /**
-     * Recomputes the {@link #isGameFinished} flag by checking whether any token in
-     * {@link #winningConditions} forms a winning line, or the board is full.
+     * Returns whether the position is a forced draw, i.e. no player can complete a line of four anymore.
+     * Such a position finishes the game without a winner before the board is full.
+     *
+     * @return {@code true} if neither player has an open line left
      */
-    private void checkGameIsFinished(){
-        isGameFinished = winningConditions.stream().anyMatch(this::checkWinningConditions) || isFull();
+    public boolean isForcedDraw() {
+        return state.isForcedDraw();
     }
 
     /**
-     * Returns whether the game has finished.
+     * Returns the number of lines of four the supplied player can still complete,
+     * i.e. lines that do not contain a token of the opponent.
      *
-     * @return {@code true} if the game ended by a win or a full board; {@code false} otherwise
+     * @param player the player for whom to return the open lines
+     * @return number of open lines
      */
-    public boolean getIsGameFinished() {
-        return this.isGameFinished;
+    public int getOpenLines(Player player) {
+        return state.getOpenLines(player.getID() - 1);
     }
 
     /**
@@ -235,159 +198,234 @@ public class Board {
      */
 
     public Player getHasWon() {
-        return hasWon;
+        int winner = state.getWinner();
+        return winner == GameState.NO_SIDE ? null : players[winner];
+    }
+
+    /**
+     * Returns an independent copy of the current position with {@code toMove} as the side to move.
+     * <p>
+     * The copy does not reference any {@link Player}; the player with id {@code n} is side {@code n - 1}.
+     * It can be searched or handed to another thread without affecting this board.
+     *
+     * @param toMove the player whose turn it is in the copied position
+     * @return forked {@link GameState}
+     */
+    public GameState snapshot(Player toMove) {
+        GameState snapshot = state.fork();
+        snapshot.setSideToMove(toMove.getID() - 1);
+        return snapshot;
     }
 
 
 
     /**
-     * Returns the stack of tokens that were placed in the "winning sector".
+     * Returns the 64-bit Zobrist hash of the current position (see {@link Zobrist}).
      * <p>
-     * Note: This exposes the internal stack object which may be mutated by callers.
+     * The hash is updated incrementally in {@link #placeToken(int, Player)} and {@link #removeToken(int)}
+     * and only depends on which player occupies which cell, not on the order of the moves.
+     * The empty board hashes to {@code 0}.
      *
-     * @return the stack of candidate tokens for win detection
+     * @return position hash
      */
-    public Stack<Token> getWinningConditions() {
-        return winningConditions;
+    public long getHash() {
+        return state.getHash();
     }
 
     /**
-     * Checks if the given token forms a winning line. The method inspects each
-     * direction vector in {@link #directions} by counting contiguous tokens for
-     * the token's owner in both the forward and backward directions. If a contiguous
-     * run of 4 or more tokens is found, {@link #hasWon} is set to the owning player
-     * and the method returns {@code true}.
+     * Returns the Zobrist hash of the left-right mirrored position.
+     * It is maintained incrementally alongside {@link #getHash()}.
      *
-     * @param token the token to inspect as a potential part of a winning line
-     * @return {@code true} if the token participates in a winning run; {@code false} otherwise
+     * @return hash of the mirrored position
      */
-    private boolean checkWinningConditions(Token token) {
-        for (int[] direction : directions) {
-            int dir1 = checkInDirection(token, direction[0], direction[1]);
-            int dir2 = checkInDirection(token, -direction[0], -direction[1]);
-            if (dir1 + dir2 - 1 >= 4) {
-                hasWon = token.owner;
-                return true;
-            }
-        }
-        return false;
+    public long getMirroredHash() {
+        return state.getMirroredHash();
+    }
+
+    /**
+     * Returns a key that is identical for a position and its left-right mirror image:
+     * the smaller of {@link #getHash()} and {@link #getMirroredHash()}.
+     * <p>
+     * Position stores keyed by this value hold one entry per pair of mirrored positions. Moves stored
+     * under the canonical key must be translated with {@link #toCanonicalMove(int)} and
+     * {@link #fromCanonicalMove(int)}.
+     *
+     * @return mirror-invariant position key
+     */
+    public long getCanonicalHash() {
+        return state.getCanonicalHash();
+    }
+
+    /**
+     * Indicates whether the canonical key of the current position is the key of its mirror image.
+     *
+     * @return {@code true} if {@link #getCanonicalHash()} equals {@link #getMirroredHash()} but not {@link #getHash()}
+     */
+    public boolean isCanonicalMirrored() {
+        return state.isCanonicalMirrored();
+    }
+
+    /**
+     * Translates a move in the current position into the move of the canonical position.
+     *
+     * @param col 1-based column index in the current position
+     * @return 1-based column index in the canonical position
+     */
+    public int toCanonicalMove(int col) {
+        return isCanonicalMirrored() ? mirrorMove(col) : col;
+    }
+
+    /**
+     * Translates a move of the canonical position back into the current position.
+     * As mirroring is its own inverse, this is the same mapping as {@link #toCanonicalMove(int)}.
+     *
+     * @param col 1-based column index in the canonical position
+     * @return 1-based column index in the current position
+     */
+    public int fromCanonicalMove(int col) {
+        return toCanonicalMove(col);
+    }
+
+    /**
+     * Returns the column that mirrors the given column at the vertical center axis,
+     * e.g. 1 and 7, 2 and 6, 3 and 5 on a board with 7 columns.
+     *
+     * @param col 1-based column index
+     * @return 1-based index of the mirrored column
+     */
+    public static int mirrorMove(int col) {
+        return COLS + 1 - col;
     }
 
     /**
-     * Counts contiguous tokens belonging to the same player as {@code token} starting
-     * at {@code token} and stepping by {@code deltaRow}/{@code deltaCol} until a boundary
-     * or a non-matching token is encountered.
+     * Returns the number of tokens currently on the board, which equals the length of the move history.
      *
-     * @param token    the starting token
-     * @param deltaRow row step per iteration
-     * @param deltaCol column step per iteration
-     * @return the number of contiguous matching tokens in the given direction
+     * @return number of moves played
      */
-    private int checkInDirection(Token token, int deltaRow, int deltaCol) {
-        int row = token.row;
-        int col = token.col;
-        int playerID = token.owner.getID();
-        int countLine = 0;
+    public int getMoveCount() {
+        return state.getMoveCount();
+    }
 
-        while (row < ROWS && row >= 0 && col < COLS && col >= 0 && Objects.nonNull(board[row][col].owner) && board[row][col].owner.getID() == playerID) {
-            countLine++;
+    /**
+     * Returns a move from the move history.
+     *
+     * @param index 0-based index of the move (0 = first move, {@link #getMoveCount()} - 1 = last move)
+     * @return 1-based column index the move was played in
+     */
+    public int getMove(int index) {
+        return state.getMove(index);
+    }
 
-            row += deltaRow;
-            col += deltaCol;
+    /**
+     * Returns the token instance representing {@code owner} in the given cell.
+     * <p>
+     * Token instances are cached per player slot and cell, so repeated make/unmake sequences
+     * in the search reuse the same objects instead of allocating new ones. A cached token is
+     * only replaced if a different player object occupies the same slot.
+     *
+     * @param owner the player placing the token
+     * @param row   0-based row index
+     * @param col   0-based column index
+     * @return token instance for the owner and cell
+     */
+    private Token getCachedToken(Player owner, int row, int col) {
+        Token[][] playerTokens = tokenCache[owner.getID() - 1];
+        Token token = playerTokens[row][col];
+        if (Objects.isNull(token) || token.owner != owner) {
+            token = new Token(owner, owner.getToken(), row, col);
+            playerTokens[row][col] = token;
         }
-        return countLine;
+        return token;
     }
 
+
+
     /**
-     * Computes "major" threat count for the supplied player across the board.
-     * Major threats are aggregated by scanning every token on the board that belongs
-     * to the player and summing the result of {@link #getThreats(Token, int)} with majorMinor=0.
+     * Returns the "major" threat count for the supplied player.
+     * <p>
+     * A major threat is a line of four cells holding exactly 3 of the player's tokens and 1 empty cell.
+     * Each such line is counted once for every end of the line that holds one of the player's tokens,
+     * i.e. once per token from which the line can be walked in one of the eight directions.
+     * The count is maintained incrementally by the underlying {@link GameState}, so this is O(1).
      *
-     * @param player the player for whom to compute major threats
-     * @return the total number of major threats found
+     * @param player the player for whom to return major threats
+     * @return the total number of major threats
      */
     public int getMajorThreats(Player player) {
-        return Arrays.stream(board).flatMap(Arrays::stream)
-                .filter(t -> Objects.nonNull(t.owner) && t.owner.getID() == player.getID())
-                .mapToInt(t -> this.getThreats(t, 0))
-                .sum();
+        return state.getMajorThreats(player.getID() - 1);
     }
 
     /**
-     * Computes "minor" threat count for the supplied player across the board.
-     * Minor threats are aggregated by scanning every token on the board that belongs
-     * to the player and summing the result of {@link #getThreats(Token, int)} with majorMinor=1.
+     * Returns the "minor" threat count for the supplied player.
+     * <p>
+     * A minor threat is a line of four cells holding exactly 2 of the player's tokens and 2 empty cells,
+     * counted in the same way as {@link #getMajorThreats(Player)}. The count is maintained incrementally
+     * by the underlying {@link GameState}, so this is O(1).
      *
-     * @param player the player for whom to compute minor threats
-     * @return the total number of minor threats found
+     * @param player the player for whom to return minor threats
+     * @return the total number of minor threats
      */
     public int getMinorThreats(Player player) {
-        return Arrays.stream(board).flatMap(Arrays::stream)
-                .filter(t -> Objects.nonNull(t.owner) &&  t.owner.getID() == player.getID())
-                .mapToInt(t -> this.getThreats(t, 1))
-                .sum();
+        return state.getMinorThreats(player.getID() - 1);
     }
 
+
     /**
-     * Aggregates directional threat counts for a given token by invoking
-     * {@link #checkInDirectionThreats(Token, int, int, int)} for each direction
-     * and its inverse.
+     * Returns the threat cells of the supplied player: empty cells that would complete a line of four
+     * for the player. Threat cells above the current column heights cannot be played yet, but decide
+     * the endgame once the columns below them fill up.
+     * <p>
+     * The result is a bitboard in the layout of {@link BitBoard}; use {@link BitBoard#bitIndex(int, int)}
+     * to test single cells or {@link Long#bitCount(long)} to count threats.
      *
-     * @param token      the token from which to evaluate threats
-     * @param majorMinor 0 to compute major-threat patterns, 1 to compute minor-threat patterns
-     * @return aggregated threat count for the token
+     * @param player the player whose threat cells are requested
+     * @return bitboard of the player's threat cells
      */
-    private int getThreats(Token token, int majorMinor) {
-        int dir1 = 0, dir2 = 0;
-        for (int[] direction : directions) {
-            dir1 += checkInDirectionThreats(token, direction[0], direction[1], majorMinor);
-            dir2 += checkInDirectionThreats(token, -direction[0], -direction[1], majorMinor);
-        }
-        return dir1 + dir2;
+    public long getThreatCells(Player player) {
+        return state.getThreatCells(player.getID() - 1);
     }
 
     /**
-     * Examines up to four consecutive positions starting at {@code token} and stepping by
-     * {@code deltaRow}/{@code deltaCol}. The method counts how many positions are empty
-     * (null owner) and how many belong to the same player as {@code token}, then returns
-     * an indicator (0 or 1) based on the selected major/minor threat pattern:
-     * <ul>
-     *     <li>major (majorMinor == 0): exactly 3 player tokens and 1 empty → returns 1</li>
-     *     <li>minor (majorMinor == 1): exactly 2 player tokens and 2 empty → returns 1</li>
-     *     <li>otherwise: returns 0</li>
-     * </ul>
+     * Returns the threat cells of the supplied player on odd rows, counted 1-based from the bottom.
+     * Odd threats are the ones that matter for the player moving first in a zugzwang endgame.
      *
-     * @param token      the reference token
-     * @param deltaRow   row step per iteration
-     * @param deltaCol   column step per iteration
-     * @param majorMinor 0 for major-threat pattern, 1 for minor-threat pattern
-     * @return 0 or 1 indicating whether the inspected window matches the threat pattern
+     * @param player the player whose threat cells are requested
+     * @return bitboard of the player's threat cells on rows 1, 3, 5, ...
      */
-    private int checkInDirectionThreats(Token token, int deltaRow, int deltaCol, int majorMinor) {
-        int row = token.row;
-        int col = token.col;
-        int playerID = token.owner.getID();
-        int nullToken = 0, playerToken = 0;
-
-        for (int i = 0; row < ROWS && row >= 0 && col < COLS && col >= 0 && i < 4; i++) {
-            if (Objects.isNull(board[row][col].owner)) {
-                nullToken++;
-            } else {
-                if (board[row][col].owner.getID() == playerID) {
-                    playerToken++;
-                }
-            }
-            row += deltaRow;
-            col += deltaCol;
-        }
+    public long getOddThreats(Player player) {
+        return getThreatCells(player) & BitBoard.ODD_ROWS_MASK;
+    }
 
-        return switch (majorMinor) {
-            case 0 -> (nullToken == 1 && playerToken == 3) ? 1 : 0;
-            case 1 -> (nullToken == 2 && playerToken == 2) ? 1 : 0;
-            default -> 0;
-        };
+    /**
+     * Returns the threat cells of the supplied player on even rows, counted 1-based from the bottom.
+     * Even threats are the ones that matter for the player moving second in a zugzwang endgame.
+     *
+     * @param player the player whose threat cells are requested
+     * @return bitboard of the player's threat cells on rows 2, 4, 6, ...
+     */
+    public long getEvenThreats(Player player) {
+        return getThreatCells(player) & BitBoard.EVEN_ROWS_MASK;
     }
 
+    /**
+     * Returns the threat cells of the supplied player that can be played immediately, i.e. the moves
+     * that win the game on the spot if it is the player's turn and must be blocked otherwise.
+     *
+     * @param player the player whose threat cells are requested
+     * @return bitboard of the player's immediately playable threat cells
+     */
+    public long getPlayableThreats(Player player) {
+        return getThreatCells(player) & state.getPlayableCells();
+    }
+
+    /**
+     * Returns the cells a token can be placed into next, one per column that is not full.
+     *
+     * @return bitboard of the playable cells (layout see {@link BitBoard})
+     */
+    public long getPlayableCells() {
+        return state.getPlayableCells();
+    }
 
 
     /**
@@ -408,15 +446,6 @@ public class Board {
         System.out.print(printBottom);
     }
 
-    /**
-     * Determines whether the board is full (no empty cells remain).
-     *
-     * @return {@code true} if the board contains ROWS * COLS tokens; {@code false} otherwise
-     */
-    private boolean isFull() {
-        return heightSum == ROWS * COLS;
-    }
-
 
 
     /**
@@ -1,11 +1,15 @@
 package game;
 
 public class GameProperties {
-    public static final int ROWS = 6;
-    public static final int COLS = 7;
+    public static final int DEFAULT_ROWS = 6;
+    public static final int DEFAULT_COLS = 7;
+
+    //Board size, can be chosen at launch without rebuilding: -Dgame.rows=7 -Dgame.cols=8 (at most 64 cells)
+    public static final int ROWS = Integer.getInteger("game.rows", DEFAULT_ROWS);
+    public static final int COLS = Integer.getInteger("game.cols", DEFAULT_COLS);
 
     //In case 5: BenchmarkAIvsPlayer the player has to start
-    public static final int GAME_MODE = 1; //Multiplayer: 0, Single player: 1, AIOnly: 2, Train: 3, BenchmarkAIvsAI: 4, BenchmarkAIvsPlayer: 5
+    public static final int GAME_MODE = 1; //Multiplayer: 0, Single player: 1, AIOnly: 2, Train: 3, BenchmarkAIvsAI: 4, BenchmarkAIvsPlayer: 5, BenchmarkSearch: 6, BuildOpeningBook: 7
     public static final boolean PLAYER1_STARTS = true;
 
     public static final int NR_BENCHMARK_GAMES = 500;
@@ -1,11 +1,16 @@
 package game;
 
 import player.ai.AIPlayer;
+import player.ai.OpeningBook;
+import player.ai.SearchProperties;
 import player.HumanPlayer;
 import player.Player;
 import player.PlayerProperty;
 import player.ai.genetic.Genome;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 
 /**
@@ -39,10 +44,13 @@ public class GameRules {
      * Different game modes:
      * <ul>
      *   <li>0 — Multiplayer: two {@link HumanPlayer} instances are created.</li>
-     *   <li>1, 5 — Single player: one {@link HumanPlayer} and one {@link AIPlayer} are created; {@code genome1} used for AI.</li>
+     *   <li>1, 5 — Single player: one {@link HumanPlayer} and one {@link AIPlayer} are created; {@code genome1} used for AI.
+     *   The AI searches as deep as {@link SearchProperties#MOVE_TIME_MILLIS} allows and ponders while the human player
+     *   thinks if {@link SearchProperties#PONDER} is set.</li>
      *   <li>2, 4 — AI-only: two {@link AIPlayer} instances are created; both genomes are printed to stdout.</li>
      *   <li>3 — Training: two {@link AIPlayer} instances are created for headless training runs.</li>
      * </ul>
+     * Except in training, AI players consult the opening book (see {@link #useOpeningBook()}).
      *
      * @param genome1 primary genome passed to the first AI participant (if used)
      * @param genome2 secondary genome passed to the second AI participant (if used)
@@ -73,6 +81,10 @@ public class GameRules {
                     player1 = new AIPlayer(PlayerProperty.PLAYER2, board, player2, true, genome1);
                     player2.setOpponent(player1);
                 }
+                AIPlayer aiPlayer = (AIPlayer) (GameProperties.PLAYER1_STARTS ? player2 : player1);
+                aiPlayer.setSearchBudget(GameProperties.ROWS * GameProperties.COLS, SearchProperties.MOVE_TIME_MILLIS, SearchProperties.MOVE_NODE_BUDGET);
+                aiPlayer.setSearchMode(SearchProperties.SEARCH_THREADS > 1 ? SearchProperties.SEARCH_MODE : AIPlayer.SEQUENTIAL_SEARCH);
+                aiPlayer.setPondering(SearchProperties.PONDER);
                 genome1.printGenome();
                 break;
             }
@@ -103,6 +115,31 @@ public class GameRules {
                 break;
             }
         }
+
+        if (GameProperties.GAME_MODE != 3) {
+            useOpeningBook();
+        }
+    }
+
+    /**
+     * Gives the AI players the opening book stored in {@link SearchProperties#OPENING_BOOK_FILE}, if the file exists.
+     * An AI player only uses the book if it was built with its genome.
+     */
+    private void useOpeningBook() {
+        Path path = Path.of(SearchProperties.OPENING_BOOK_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            OpeningBook book = new OpeningBook(path);
+            for (Player player : new Player[]{player1, player2}) {
+                if (player instanceof AIPlayer aiPlayer) {
+                    aiPlayer.setOpeningBook(book);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
 
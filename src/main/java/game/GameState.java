@@ -0,0 +1,536 @@
+package game;
+
+import java.util.Arrays;
+
+import static game.BitBoard.bitIndex;
+import static game.BitBoard.hasFourInARow;
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
+
+/**
+ * Compact, copyable value holding the complete state of a game position.
+ * <p>
+ * A {@code GameState} contains both sides' tokens as bitboards (layout see {@link BitBoard}), the column
+ * heights, the move history, the side to move and the result. It also keeps the incrementally updated
+ * position hashes (see {@link Zobrist}), the major/minor threat counters and the number of lines each side
+ * can still complete. It does not reference any
+ * {@link player.Player} objects: sides are identified by their index {@code 0} and {@code 1}, which is
+ * the player id minus one.
+ * <p>
+ * {@link #fork()} creates an independent copy of a few small arrays, so a position can be searched on
+ * another thread while the original is left untouched. {@link Board} and {@link BitBoard} keep their
+ * state in a {@code GameState} and map players to sides.
+ * <p>
+ * Threading and concurrency are not considered — a single instance must not be used by several
+ * threads at once, fork it instead.
+ */
+public final class GameState {
+
+    /**
+     * Returned by {@link #getWinner()} and {@link #getOwner(int, int)} if no side applies.
+     */
+    public static final int NO_SIDE = -1;
+
+    private final long[] stones;
+    private long mask;
+    private final int[] heights;
+    private final int[] moveHistory;
+    private int moveCount;
+
+    private int sideToMove;
+    private int winner;
+    private boolean finished;
+
+    private long hash;
+    private long mirroredHash;
+
+    private final int[] majorThreats;
+    private final int[] minorThreats;
+    private final int[] openLines;
+
+
+
+    /**
+     * Constructs the empty position with side {@code 0} to move.
+     */
+    public GameState() {
+        this.stones = new long[2];
+        this.heights = new int[COLS];
+        this.moveHistory = new int[ROWS * COLS];
+        this.majorThreats = new int[2];
+        this.minorThreats = new int[2];
+        this.openLines = new int[2];
+        reset();
+    }
+
+    /**
+     * Copy constructor used by {@link #fork()}.
+     *
+     * @param other the state to copy
+     */
+    private GameState(GameState other) {
+        this.stones = other.stones.clone();
+        this.mask = other.mask;
+        this.heights = other.heights.clone();
+        this.moveHistory = other.moveHistory.clone();
+        this.moveCount = other.moveCount;
+        this.sideToMove = other.sideToMove;
+        this.winner = other.winner;
+        this.finished = other.finished;
+        this.hash = other.hash;
+        this.mirroredHash = other.mirroredHash;
+        this.majorThreats = other.majorThreats.clone();
+        this.minorThreats = other.minorThreats.clone();
+        this.openLines = other.openLines.clone();
+    }
+
+    /**
+     * Returns an independent copy of this position. Changes to the copy do not affect this instance
+     * and vice versa.
+     *
+     * @return copy of this state
+     */
+    public GameState fork() {
+        return new GameState(this);
+    }
+
+    /**
+     * Resets this instance to the empty position with side {@code 0} to move.
+     */
+    public void reset() {
+        Arrays.fill(this.stones, 0L);
+        this.mask = 0L;
+        Arrays.fill(this.heights, 0);
+        this.moveCount = 0;
+        this.sideToMove = 0;
+        this.winner = NO_SIDE;
+        this.finished = false;
+        this.hash = 0L;
+        this.mirroredHash = 0L;
+        Arrays.fill(this.majorThreats, 0);
+        Arrays.fill(this.minorThreats, 0);
+        Arrays.fill(this.openLines, ThreatKernel.LINE_COUNT);
+    }
+
+
+    /**
+     * Replaces this position with the position given by both sides' bitboards, e.g. a decoded position
+     * (see {@link PositionCodec}). Heights, hashes, threat and open-line counters and the result are
+     * recomputed from scratch without allocating.
+     * <p>
+     * The order in which the tokens were played is not known: the move history is rebuilt column by
+     * column from left to right and bottom to top. It is a valid sequence for {@link #undo(int)}, but not
+     * necessarily the sequence that was played.
+     *
+     * @param stones0    tokens of side {@code 0} (layout see {@link BitBoard}); must be stacked from the bottom
+     * @param stones1    tokens of side {@code 1}; must not overlap {@code stones0}
+     * @param sideToMove {@code 0} or {@code 1}
+     */
+    public void load(long stones0, long stones1, int sideToMove) {
+        this.stones[0] = stones0;
+        this.stones[1] = stones1;
+        this.mask = stones0 | stones1;
+        this.moveCount = 0;
+        this.hash = 0L;
+        this.mirroredHash = 0L;
+        for (int innerCol = 0; innerCol < COLS; innerCol++) {
+            heights[innerCol] = Long.bitCount(mask & BitBoard.columnMask(innerCol));
+            for (int row = 0; row < heights[innerCol]; row++) {
+                int side = getOwner(row, innerCol);
+                moveHistory[moveCount++] = innerCol + 1;
+                hash ^= Zobrist.key(side, row, innerCol);
+                mirroredHash ^= Zobrist.mirroredKey(side, row, innerCol);
+            }
+        }
+
+        for (int side = 0; side < 2; side++) {
+            majorThreats[side] = ThreatKernel.countMajorThreats(stones[side], stones[1 - side]);
+            minorThreats[side] = ThreatKernel.countMinorThreats(stones[side], stones[1 - side]);
+            openLines[side] = ThreatKernel.countOpenLines(stones[1 - side]);
+        }
+
+        this.sideToMove = sideToMove;
+        if (hasFourInARow(stones0)) {
+            this.winner = 0;
+        } else if (hasFourInARow(stones1)) {
+            this.winner = 1;
+        } else {
+            this.winner = NO_SIDE;
+        }
+        this.finished = winner != NO_SIDE || isFull() || isForcedDraw();
+    }
+
+
+    /**
+     * Checks whether a token can be placed into the given 1-based column.
+     *
+     * @param col 1-based column index
+     * @return {@code true} if the column exists and is not full
+     */
+    public boolean canPlay(int col) {
+        return col >= 1 && col <= COLS && heights[col - 1] < ROWS;
+    }
+
+    /**
+     * Places a token of the side to move into the given 1-based column.
+     *
+     * @param col 1-based column index (valid range: 1 .. COLS)
+     * @return {@code true} if the token was placed; {@code false} if the column is invalid or full
+     * @see #play(int, int)
+     */
+    public boolean play(int col) {
+        return play(col, sideToMove);
+    }
+
+    /**
+     * Places a token of the given side into the given 1-based column. Afterward the other side is to move.
+     * <p>
+     * The position hashes and line counters are updated incrementally, the column is appended to the
+     * move history and the result is re-evaluated. Only the side that moved can have completed a line.
+     * The game is also finished as a draw once neither side can complete any line, see {@link #isForcedDraw()}.
+     *
+     * @param col  1-based column index (valid range: 1 .. COLS)
+     * @param side index of the side placing the token ({@code 0} or {@code 1})
+     * @return {@code true} if the token was placed; {@code false} if the column is invalid or full
+     */
+    public boolean play(int col, int side) {
+        if (!canPlay(col)) {
+            return false;
+        }
+
+        int innerCol = col - 1;
+        int row = heights[innerCol];
+        int bit = bitIndex(row, innerCol);
+        long move = 1L << bit;
+
+        updateLines(bit, -1);
+        stones[side] |= move;
+        mask |= move;
+        updateLines(bit, 1);
+
+        heights[innerCol]++;
+        moveHistory[moveCount++] = col;
+        hash ^= Zobrist.key(side, row, innerCol);
+        mirroredHash ^= Zobrist.mirroredKey(side, row, innerCol);
+        sideToMove = 1 - side;
+
+        if (hasFourInARow(stones[side])) {
+            winner = side;
+            finished = true;
+        } else {
+            finished = isFull() || isForcedDraw();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the topmost token from the given 1-based column and makes its owner the side to move.
+     * <p>
+     * The column must be the column of the last move; callers should ensure the operation is legal.
+     * As a finished position is never played on, the position before the move was not finished.
+     *
+     * @param col 1-based column index of the last move
+     */
+    public void undo(int col) {
+        int innerCol = col - 1;
+        int row = heights[innerCol] - 1;
+        int bit = bitIndex(row, innerCol);
+        long move = 1L << bit;
+        int side = (stones[0] & move) != 0 ? 0 : 1;
+
+        updateLines(bit, -1);
+        stones[side] &= ~move;
+        mask &= ~move;
+        updateLines(bit, 1);
+
+        heights[innerCol]--;
+        moveCount--;
+        hash ^= Zobrist.key(side, row, innerCol);
+        mirroredHash ^= Zobrist.mirroredKey(side, row, innerCol);
+        sideToMove = side;
+
+        winner = NO_SIDE;
+        finished = false;
+    }
+
+    /**
+     * Determines whether the board is full (no empty cells remain).
+     *
+     * @return {@code true} if the board contains ROWS * COLS tokens; {@code false} otherwise
+     */
+    private boolean isFull() {
+        return moveCount == ROWS * COLS;
+    }
+
+    /**
+     * Determines whether the position is a forced draw: every line of four already contains tokens of
+     * both sides, so no side can win anymore regardless of how the remaining cells are filled.
+     *
+     * @return {@code true} if neither side has an open line left
+     */
+    public boolean isForcedDraw() {
+        return openLines[0] == 0 && openLines[1] == 0;
+    }
+
+
+
+    /**
+     * Returns the index of the side to move.
+     *
+     * @return {@code 0} or {@code 1}
+     */
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Sets the side to move, e.g. when a position is handed to a player whose turn it is.
+     *
+     * @param sideToMove {@code 0} or {@code 1}
+     */
+    public void setSideToMove(int sideToMove) {
+        this.sideToMove = sideToMove;
+    }
+
+    /**
+     * Returns whether the game has finished.
+     *
+     * @return {@code true} if the game ended by a win, a full board or a forced draw; {@code false} otherwise
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns the side that has won the game.
+     *
+     * @return index of the winning side or {@link #NO_SIDE} if no side has won
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns the bitboard of a side's tokens (layout see {@link BitBoard}).
+     *
+     * @param side {@code 0} or {@code 1}
+     * @return tokens of the side
+     */
+    public long getStones(int side) {
+        return stones[side];
+    }
+
+    /**
+     * Returns the bitboard of all occupied cells.
+     *
+     * @return occupancy mask
+     */
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * Returns the number of tokens in a column.
+     *
+     * @param col 1-based column index
+     * @return number of tokens in the column
+     */
+    public int getHeight(int col) {
+        return heights[col - 1];
+    }
+
+    /**
+     * Returns the side owning the token in a cell.
+     *
+     * @param row      0-based row index (0 = bottom)
+     * @param innerCol 0-based column index
+     * @return index of the owning side or {@link #NO_SIDE} if the cell is empty
+     */
+    public int getOwner(int row, int innerCol) {
+        long cell = 1L << bitIndex(row, innerCol);
+        if ((stones[0] & cell) != 0) {
+            return 0;
+        }
+        return (stones[1] & cell) != 0 ? 1 : NO_SIDE;
+    }
+
+    /**
+     * Returns the number of tokens on the board, which equals the length of the move history.
+     *
+     * @return number of moves played
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns a move from the move history.
+     *
+     * @param index 0-based index of the move (0 = first move, {@link #getMoveCount()} - 1 = last move)
+     * @return 1-based column index the move was played in
+     */
+    public int getMove(int index) {
+        return moveHistory[index];
+    }
+
+
+
+    /**
+     * Returns the 64-bit Zobrist hash of the position (see {@link Zobrist}).
+     * The hash only depends on which side occupies which cell. The empty board hashes to {@code 0}.
+     *
+     * @return position hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns a key of the position including the side to move: {@link #getHash()}, XOR-ed with
+     * {@link Zobrist#sideToMoveKey()} if side {@code 1} is to move. Used to key search results.
+     *
+     * @return position key including the side to move
+     */
+    public long getKey() {
+        return sideToMove == 0 ? hash : hash ^ Zobrist.sideToMoveKey();
+    }
+
+    /**
+     * Returns the Zobrist hash of the left-right mirrored position.
+     *
+     * @return hash of the mirrored position
+     */
+    public long getMirroredHash() {
+        return mirroredHash;
+    }
+
+    /**
+     * Returns a key that is identical for a position and its left-right mirror image:
+     * the smaller of {@link #getHash()} and {@link #getMirroredHash()}.
+     *
+     * @return mirror-invariant position key
+     */
+    public long getCanonicalHash() {
+        return Math.min(hash, mirroredHash);
+    }
+
+    /**
+     * Returns a key including the side to move that is identical for a position and its left-right mirror image:
+     * {@link #getCanonicalHash()}, XOR-ed with {@link Zobrist#sideToMoveKey()} if side {@code 1} is to move.
+     *
+     * @return mirror-invariant position key including the side to move
+     */
+    public long getCanonicalKey() {
+        long canonicalHash = getCanonicalHash();
+        return sideToMove == 0 ? canonicalHash : canonicalHash ^ Zobrist.sideToMoveKey();
+    }
+
+    /**
+     * Indicates whether the canonical key of the position is the key of its mirror image.
+     *
+     * @return {@code true} if {@link #getCanonicalHash()} equals {@link #getMirroredHash()} but not {@link #getHash()}
+     */
+    public boolean isCanonicalMirrored() {
+        return mirroredHash < hash;
+    }
+
+
+
+    /**
+     * Returns the "major" threat count of a side: lines of four with 3 tokens of the side and
+     * 1 empty cell, counted once per end cell of the line held by the side.
+     *
+     * @param side {@code 0} or {@code 1}
+     * @return number of major threats
+     */
+    public int getMajorThreats(int side) {
+        return majorThreats[side];
+    }
+
+    /**
+     * Returns the "minor" threat count of a side: lines of four with 2 tokens of the side and
+     * 2 empty cells, counted once per end cell of the line held by the side.
+     *
+     * @param side {@code 0} or {@code 1}
+     * @return number of minor threats
+     */
+    public int getMinorThreats(int side) {
+        return minorThreats[side];
+    }
+
+    /**
+     * Returns the number of lines of four the given side can still complete, i.e. lines that do not
+     * contain a token of the other side.
+     *
+     * @param side {@code 0} or {@code 1}
+     * @return number of open lines (at most {@link ThreatKernel#LINE_COUNT})
+     */
+    public int getOpenLines(int side) {
+        return openLines[side];
+    }
+
+    /**
+     * Returns the threat cells of a side: empty cells that would complete a line of four for the side,
+     * regardless of whether they can be played yet (see {@link BitBoard#threatCells(long, long)}).
+     *
+     * @param side {@code 0} or {@code 1}
+     * @return bitboard of the side's threat cells
+     */
+    public long getThreatCells(int side) {
+        return BitBoard.threatCells(stones[side], mask);
+    }
+
+    /**
+     * Returns the cells a token can be placed into next, one per column that is not full.
+     *
+     * @return bitboard of the playable cells
+     */
+    public long getPlayableCells() {
+        return BitBoard.playableCells(mask);
+    }
+
+    /**
+     * Adds ({@code sign = 1}) or subtracts ({@code sign = -1}) the contribution of every line of four
+     * that contains the given cell to the threat and open-line counters. Called with {@code -1} before
+     * and with {@code 1} after a cell changes, so only the at most 16 lines through the changed cell are
+     * inspected (see {@link ThreatKernel#linesThrough(int)}).
+     *
+     * @param bitIndex bit index of the changed cell
+     * @param sign     {@code 1} to add, {@code -1} to subtract the contributions
+     */
+    private void updateLines(int bitIndex, int sign) {
+        for (int line : ThreatKernel.linesThrough(bitIndex)) {
+            addLine(ThreatKernel.line(line), ThreatKernel.lineEnds(line), sign);
+        }
+    }
+
+    /**
+     * Examines a line of four.
+     * <ul>
+     *     <li>A line without tokens of the other side is open for a side.</li>
+     *     <li>A line with exactly 3 tokens of a side and 1 empty cell is a major threat.</li>
+     *     <li>A line with exactly 2 tokens of a side and 2 empty cells is a minor threat.</li>
+     * </ul>
+     * An open line adds {@code sign} to the side's open-line counter, a matching threat line adds
+     * {@code sign} times the number of its end cells owned by the side to the side's threat counter.
+     *
+     * @param line mask of the line's four cells
+     * @param ends mask of the line's first and last cell
+     * @param sign {@code 1} to add, {@code -1} to subtract the contribution
+     */
+    private void addLine(long line, long ends, int sign) {
+        for (int side = 0; side < 2; side++) {
+            if ((stones[1 - side] & line) != 0) {
+                continue;
+            }
+            openLines[side] += sign;
+
+            int playerToken = Long.bitCount(stones[side] & line);
+            if (playerToken == 3) {
+                majorThreats[side] += sign * Long.bitCount(stones[side] & ends);
+            } else if (playerToken == 2) {
+                minorThreats[side] += sign * Long.bitCount(stones[side] & ends);
+            }
+        }
+    }
+}
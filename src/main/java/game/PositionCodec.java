@@ -0,0 +1,155 @@
+package game;
+
+import java.nio.ByteBuffer;
+
+import static game.BitBoard.BOTTOM_MASK;
+import static game.BitBoard.H1;
+import static game.BitBoard.SENTINEL;
+import static game.GameProperties.COLS;
+
+/**
+ * Converts {@link GameState} positions to and from compact serialized forms.
+ * <ul>
+ *     <li>
+ *         Move string: the 1-based columns of all moves in playing order, one character per move
+ *         ({@code '1'} .. {@code '9'}, then {@code 'a'}, {@code 'b'}, ... for boards with more columns),
+ *         e.g. {@code "4453"}. Side {@code 0} moves first.
+ *     </li>
+ *     <li>
+ *         Binary record of {@link #RECORD_SIZE} bytes. With the sentinel layout (see {@link BitBoard#SENTINEL})
+ *         a position is a single {@code long} key {@code stones0 + mask + BOTTOM_MASK}: adding the bottom cells
+ *         to the occupancy mask leaves one marker bit on top of every column, the bits below it are side
+ *         {@code 0}'s tokens. The key is followed by one byte holding the side to move. Boards that only fit
+ *         the dense layout store both bitboards instead.
+ *     </li>
+ * </ul>
+ * The binary form does not contain the move order, see {@link GameState#load(long, long, int)}.
+ * Encoding and decoding do not allocate.
+ * <p>
+ * This class cannot be instantiated.
+ */
+public class PositionCodec {
+
+    /**
+     * Number of bytes of a binary position record.
+     */
+    public static final int RECORD_SIZE = SENTINEL ? Long.BYTES + 1 : 2 * Long.BYTES + 1;
+
+    /**
+     * Radix of the characters of a move string.
+     */
+    private static final int MOVE_RADIX = Character.MAX_RADIX;
+
+
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private PositionCodec() {}
+
+    /**
+     * Returns the move string of a position.
+     *
+     * @param state the position
+     * @return the moves played so far, one character per move
+     */
+    public static String toMoveString(GameState state) {
+        StringBuilder sb = new StringBuilder(state.getMoveCount());
+        for (int i = 0; i < state.getMoveCount(); i++) {
+            sb.append(Character.forDigit(state.getMove(i), MOVE_RADIX));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the move string of the position on a board.
+     *
+     * @param board the board
+     * @return the moves played so far, one character per move
+     */
+    public static String toMoveString(Board board) {
+        StringBuilder sb = new StringBuilder(board.getMoveCount());
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            sb.append(Character.forDigit(board.getMove(i), MOVE_RADIX));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Resets a position and plays the moves of a move string on it, side {@code 0} first.
+     *
+     * @param moves  the move string
+     * @param target the position to overwrite
+     * @return {@code true} if all moves were played; {@code false} if a character is not a column,
+     *         a column is full or a move follows the end of the game
+     */
+    public static boolean fromMoveString(String moves, GameState target) {
+        target.reset();
+        for (int i = 0; i < moves.length(); i++) {
+            int col = Character.digit(moves.charAt(i), MOVE_RADIX);
+            if (target.isFinished() || !target.play(col)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    /**
+     * Returns the binary key of a position with the sentinel layout: {@code stones0 + mask + BOTTOM_MASK}.
+     *
+     * @param state the position
+     * @return 64-bit key identifying the position
+     * @throws IllegalStateException if the board uses the dense layout
+     */
+    public static long key(GameState state) {
+        if (!SENTINEL) {
+            throw new IllegalStateException("position keys require the sentinel bitboard layout");
+        }
+        return state.getStones(0) + state.getMask() + BOTTOM_MASK;
+    }
+
+    /**
+     * Writes the binary record of a position at the buffer's current position and advances it
+     * by {@link #RECORD_SIZE} bytes.
+     *
+     * @param state  the position
+     * @param buffer the target buffer
+     */
+    public static void encode(GameState state, ByteBuffer buffer) {
+        if (SENTINEL) {
+            buffer.putLong(key(state));
+        } else {
+            buffer.putLong(state.getStones(0));
+            buffer.putLong(state.getStones(1));
+        }
+        buffer.put((byte) state.getSideToMove());
+    }
+
+    /**
+     * Reads the binary record at the given buffer offset into a position. The buffer's position is not changed.
+     *
+     * @param buffer the source buffer
+     * @param offset byte offset of the record
+     * @param target the position to overwrite
+     */
+    public static void decode(ByteBuffer buffer, int offset, GameState target) {
+        int sideToMove = buffer.get(offset + RECORD_SIZE - 1);
+        if (!SENTINEL) {
+            target.load(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES), sideToMove);
+            return;
+        }
+
+        long key = buffer.getLong(offset);
+        long stones0 = 0L;
+        long mask = 0L;
+        for (int innerCol = 0; innerCol < COLS; innerCol++) {
+            long column = (key >>> (innerCol * H1)) & ((1L << H1) - 1);
+            long marker = Long.highestOneBit(column);
+            stones0 |= (column & ~marker) << (innerCol * H1);
+            mask |= (marker - 1) << (innerCol * H1);
+        }
+        target.load(stones0, mask & ~stones0, sideToMove);
+    }
+}
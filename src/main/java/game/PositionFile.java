@@ -0,0 +1,198 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
+
+/**
+ * File of fixed-width binary position records (see {@link PositionCodec}).
+ * <p>
+ * File layout: an 8 byte header followed by the records.
+ * <pre>
+ *   magic "C4PF" (4 bytes) | ROWS (1 byte) | COLS (1 byte) | record size (1 byte) | reserved (1 byte)
+ * </pre>
+ * {@link Writer} appends positions to a new file; {@link Reader} memory-maps a file and decodes the records
+ * one after another into a single {@link GameState} supplied by the caller, so iterating over a large position
+ * suite does not allocate per record. A file can only be read with the board size it was written with.
+ * <p>
+ * This class cannot be instantiated.
+ */
+public class PositionFile {
+
+    private static final int MAGIC = 0x43345046;
+    private static final int HEADER_SIZE = 8;
+
+
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private PositionFile() {}
+
+    /**
+     * Writes the file header for the configured board size into a buffer.
+     *
+     * @param header buffer of at least {@link #HEADER_SIZE} bytes
+     */
+    private static void putHeader(ByteBuffer header) {
+        header.putInt(MAGIC);
+        header.put((byte) ROWS);
+        header.put((byte) COLS);
+        header.put((byte) PositionCodec.RECORD_SIZE);
+        header.put((byte) 0);
+    }
+
+
+
+    /**
+     * Sequential writer for a position file. Existing files are overwritten.
+     *
+     * <p>Thread-safety: this class is not synchronized.</p>
+     */
+    public static class Writer implements Closeable {
+
+        private final OutputStream out;
+        private final ByteBuffer record = ByteBuffer.allocate(PositionCodec.RECORD_SIZE);
+        private long count;
+
+        /**
+         * Creates the file and writes its header.
+         *
+         * @param path the file to write
+         * @throws IOException if the file cannot be created or written
+         */
+        public Writer(Path path) throws IOException {
+            this.out = new BufferedOutputStream(Files.newOutputStream(path));
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            putHeader(header);
+            this.out.write(header.array());
+        }
+
+        /**
+         * Appends the record of a position.
+         *
+         * @param state the position to write
+         * @throws IOException if writing fails
+         */
+        public void append(GameState state) throws IOException {
+            record.clear();
+            PositionCodec.encode(state, record);
+            out.write(record.array());
+            count++;
+        }
+
+        /**
+         * Returns the number of positions written so far.
+         *
+         * @return number of records
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+
+
+    /**
+     * Memory-mapped reader for a position file with a cursor over its records.
+     * <p>
+     * The mapping is limited to 2 GB, i.e. more than 200 million positions on the default board.
+     *
+     * <p>Thread-safety: this class is not synchronized. Several threads may read the same file with one
+     * reader each or share a reader using {@link #read(int, GameState)} only.</p>
+     */
+    public static class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int size;
+        private int cursor;
+
+        /**
+         * Opens and memory-maps a position file and validates its header.
+         *
+         * @param path the file to read
+         * @throws IOException if the file cannot be read, exceeds 2 GB or was written for another board size
+         */
+        public Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long length = channel.size();
+                if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                    throw new IOException(String.format("%s: invalid position file length %d", path, length));
+                }
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+
+                ByteBuffer expected = ByteBuffer.allocate(HEADER_SIZE);
+                putHeader(expected);
+                if (!expected.flip().equals(buffer.slice(0, HEADER_SIZE))) {
+                    throw new IOException(String.format("%s: not a position file for a %dx%d board", path, ROWS, COLS));
+                }
+                this.size = (int) ((length - HEADER_SIZE) / PositionCodec.RECORD_SIZE);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the number of positions in the file.
+         *
+         * @return number of records
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Decodes the record at the cursor into the given position and advances the cursor.
+         *
+         * @param target the position to overwrite
+         * @return {@code true} if a record was read; {@code false} if the cursor is at the end of the file
+         */
+        public boolean next(GameState target) {
+            if (cursor >= size) {
+                return false;
+            }
+            read(cursor++, target);
+            return true;
+        }
+
+        /**
+         * Decodes the record with the given index into the given position. The cursor is not changed.
+         *
+         * @param index  0-based record index (valid range: 0 .. size() - 1)
+         * @param target the position to overwrite
+         */
+        public void read(int index, GameState target) {
+            PositionCodec.decode(buffer, HEADER_SIZE + index * PositionCodec.RECORD_SIZE, target);
+        }
+
+        /**
+         * Moves the cursor back to the first record.
+         */
+        public void rewind() {
+            cursor = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static game.BitBoard.H1;
+import static game.BitBoard.bitIndex;
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
+
+/**
+ * Precomputed table of all lines of four on the board (69 on a 6x7 board) and popcount-based
+ * threat evaluation on top of it.
+ * <p>
+ * Every line is stored as a bitmask in the {@link BitBoard} layout together with the mask of its two end
+ * cells. Counting threats for a side is then a loop over the table with a few {@link Long#bitCount(long)}
+ * calls per line instead of walking directions cell by cell. The counts match the threat definition used
+ * by {@link Board#getMajorThreats(player.Player)} and {@link Board#getMinorThreats(player.Player)}:
+ * <ul>
+ *     <li>major: exactly 3 tokens of the side and 1 empty cell</li>
+ *     <li>minor: exactly 2 tokens of the side and 2 empty cells</li>
+ * </ul>
+ * and each matching line is counted once per end cell held by the side.
+ * <p>
+ * For incremental updates {@link #linesThrough(int)} returns the indices of the lines containing a cell.
+ * <p>
+ * This class cannot be instantiated.
+ */
+public class ThreatKernel {
+
+    /**
+     * Direction vectors used to enumerate the lines.
+     * Each entry is a pair {deltaRow, deltaCol}:
+     * <ul>
+     *   <li>{0, 1}   — horizontal (right)</li>
+     *   <li>{1, 0}   — vertical (up)</li>
+     *   <li>{1, 1}   — diagonal up-right</li>
+     *   <li>{1, -1}  — diagonal up-left</li>
+     * </ul>
+     */
+    private static final int[][] directions = {
+            {0, 1},     //horizontal
+            {1, 0},     //vertical
+            {1, 1},     //diagonal up
+            {1, -1},    //diagonal down
+    };
+
+    /**
+     * Number of lines of four on the board.
+     */
+    public static final int LINE_COUNT;
+
+    private static final long[] LINES;
+    private static final long[] LINE_ENDS;
+    private static final int[][] LINES_THROUGH_CELL;
+
+
+
+    // Static initializer enumerates all lines of four and indexes them by the cells they contain.
+    static {
+        List<long[]> lines = new ArrayList<>();
+        for (int[] direction : directions) {
+            for (int row = 0; row < ROWS; row++) {
+                for (int col = 0; col < COLS; col++) {
+                    int endRow = row + 3 * direction[0];
+                    int endCol = col + 3 * direction[1];
+                    if (endRow < 0 || endRow >= ROWS || endCol < 0 || endCol >= COLS) {
+                        continue;
+                    }
+
+                    long line = 0L;
+                    for (int i = 0; i < 4; i++) {
+                        line |= 1L << bitIndex(row + i * direction[0], col + i * direction[1]);
+                    }
+                    long ends = (1L << bitIndex(row, col)) | (1L << bitIndex(endRow, endCol));
+                    lines.add(new long[]{line, ends});
+                }
+            }
+        }
+
+        LINE_COUNT = lines.size();
+        LINES = new long[LINE_COUNT];
+        LINE_ENDS = new long[LINE_COUNT];
+        for (int i = 0; i < LINE_COUNT; i++) {
+            LINES[i] = lines.get(i)[0];
+            LINE_ENDS[i] = lines.get(i)[1];
+        }
+
+        LINES_THROUGH_CELL = new int[H1 * COLS][];
+        for (int bit = 0; bit < LINES_THROUGH_CELL.length; bit++) {
+            int count = 0;
+            for (long line : LINES) {
+                if ((line & (1L << bit)) != 0) {
+                    count++;
+                }
+            }
+            LINES_THROUGH_CELL[bit] = new int[count];
+            for (int i = 0, j = 0; i < LINE_COUNT; i++) {
+                if ((LINES[i] & (1L << bit)) != 0) {
+                    LINES_THROUGH_CELL[bit][j++] = i;
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private ThreatKernel() {}
+
+    /**
+     * Returns the bitmask of a line.
+     *
+     * @param line line index (valid range: 0 .. LINE_COUNT - 1)
+     * @return mask of the line's four cells
+     */
+    public static long line(int line) {
+        return LINES[line];
+    }
+
+    /**
+     * Returns the bitmask of the two end cells of a line.
+     *
+     * @param line line index (valid range: 0 .. LINE_COUNT - 1)
+     * @return mask of the line's first and last cell
+     */
+    public static long lineEnds(int line) {
+        return LINE_ENDS[line];
+    }
+
+    /**
+     * Returns the indices of all lines containing a cell.
+     * <p>
+     * Warning: This method exposes the internal array directly.
+     *
+     * @param bitIndex bit index of the cell (see {@link BitBoard#bitIndex(int, int)})
+     * @return indices of the lines through the cell (at most 16)
+     */
+    public static int[] linesThrough(int bitIndex) {
+        return LINES_THROUGH_CELL[bitIndex];
+    }
+
+
+
+    /**
+     * Counts the major threats of a side: lines with 3 own tokens and 1 empty cell,
+     * each counted once per end cell holding an own token.
+     *
+     * @param own      bitboard of the side's tokens
+     * @param opponent bitboard of the other side's tokens
+     * @return number of major threats
+     */
+    public static int countMajorThreats(long own, long opponent) {
+        return countThreats(own, opponent, 3);
+    }
+
+    /**
+     * Counts the minor threats of a side: lines with 2 own tokens and 2 empty cells,
+     * each counted once per end cell holding an own token.
+     *
+     * @param own      bitboard of the side's tokens
+     * @param opponent bitboard of the other side's tokens
+     * @return number of minor threats
+     */
+    public static int countMinorThreats(long own, long opponent) {
+        return countThreats(own, opponent, 2);
+    }
+
+    /**
+     * Counts the lines a side can still complete, i.e. lines without a token of the other side.
+     *
+     * @param opponent bitboard of the other side's tokens
+     * @return number of open lines
+     */
+    public static int countOpenLines(long opponent) {
+        int open = 0;
+        for (long line : LINES) {
+            if ((opponent & line) == 0) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Counts lines free of opponent tokens holding exactly {@code tokens} own tokens, weighted
+     * by the number of end cells holding an own token.
+     *
+     * @param own      bitboard of the side's tokens
+     * @param opponent bitboard of the other side's tokens
+     * @param tokens   required number of own tokens in the line
+     * @return weighted number of matching lines
+     */
+    private static int countThreats(long own, long opponent, int tokens) {
+        int threats = 0;
+        for (int i = 0; i < LINE_COUNT; i++) {
+            long line = LINES[i];
+            if ((opponent & line) == 0 && Long.bitCount(own & line) == tokens) {
+                threats += Long.bitCount(own & LINE_ENDS[i]);
+            }
+        }
+        return threats;
+    }
+}
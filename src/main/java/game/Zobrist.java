@@ -0,0 +1,82 @@
+package game;
+
+import java.util.SplittableRandom;
+
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
+
+/**
+ * Random keys for Zobrist hashing of board positions.
+ * <p>
+ * Every (player, cell) combination is assigned a random 64-bit key. The hash of a position is the
+ * XOR of the keys of all occupied cells, so placing or removing a token updates the hash with a
+ * single XOR and the empty board hashes to {@code 0}.
+ * <p>
+ * The keys are generated from a fixed seed, hence hashes are identical across runs and may be
+ * persisted (e.g. in position files or caches).
+ * <p>
+ * This class cannot be instantiated.
+ */
+public class Zobrist {
+
+    private static final long SEED = 0x436F6E6E65637434L;
+
+    private static final long[][] KEYS = new long[2][ROWS * COLS];
+    private static final long SIDE_TO_MOVE_KEY;
+
+
+
+    // Static initializer fills the key table from the fixed seed.
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int side = 0; side < KEYS.length; side++) {
+            for (int cell = 0; cell < KEYS[side].length; cell++) {
+                KEYS[side][cell] = random.nextLong();
+            }
+        }
+        SIDE_TO_MOVE_KEY = random.nextLong();
+    }
+
+
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private Zobrist() {}
+
+    /**
+     * Returns the key of a token of the given player in the given cell.
+     *
+     * @param side player index ({@code id - 1})
+     * @param row  0-based row index
+     * @param col  0-based column index
+     * @return 64-bit Zobrist key
+     */
+    public static long key(int side, int row, int col) {
+        return KEYS[side][row * COLS + col];
+    }
+
+    /**
+     * Returns the key of the cell that mirrors the given cell at the vertical center axis of the board.
+     * XOR-ing these keys instead of {@link #key(int, int, int)} yields the hash of the left-right
+     * mirrored position.
+     *
+     * @param side player index ({@code id - 1})
+     * @param row  0-based row index
+     * @param col  0-based column index
+     * @return 64-bit Zobrist key of the mirrored cell
+     */
+    public static long mirroredKey(int side, int row, int col) {
+        return KEYS[side][row * COLS + (COLS - 1 - col)];
+    }
+
+    /**
+     * Returns the key XOR-ed into a position key if side {@code 1} is to move, so positions with the same
+     * tokens but a different side to move get different keys.
+     *
+     * @return 64-bit Zobrist key of the side to move
+     */
+    public static long sideToMoveKey() {
+        return SIDE_TO_MOVE_KEY;
+    }
+}
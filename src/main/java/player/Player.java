@@ -2,14 +2,11 @@ package player;
 
 import game.Board;
 
-import java.util.Stack;
-import java.util.stream.Stream;
-
 /**
  * Abstract base class for a game participant.
  * <p>
- * A {@code Player} encapsulates identity (token, id), turn-related flags, and a history
- * of placed tokens. Concrete subclasses must implement move decision logic by overriding
+ * A {@code Player} encapsulates identity (token, id) and turn-related flags. The moves of a match
+ * are recorded by the board (see {@link game.GameState}), not by the players. Concrete subclasses must implement move decision logic by overriding
  * {@link #makeMove()} (e.g. {@link player.HumanPlayer} and {@link player.ai.AIPlayer}).
  *
  * <p>
@@ -17,12 +14,11 @@ import java.util.stream.Stream;
  * <ul>
  *   <li>Expose immutable player identity: token string and numeric id.</li>
  *   <li>Track whether the player starts the match (beginningPlayer).</li>
- *   <li>Maintain a stack of tokens placed by this player for quick undo/inspection.</li>
- *   <li>Provide accessors for opponent reference and game board.</li>
+ * *   <li>Provide accessors for opponent reference and game board.</li>
  * </ul>
  *
  * <p>
- * Note: This class uses {@link java.util.Stack} for token history and is not synchronized;
+ * Note: This class is not synchronized;
  * if Player instances are accessed concurrently additional synchronization is required.
  * </p>
  */
@@ -35,7 +31,6 @@ public abstract class Player {
 
     protected Board board;
     private Player opponent;
-    private Stack<Board.Token> tokensPlayed;
 
     /**
      * Construct a Player without an explicit opponent reference.
@@ -64,7 +59,6 @@ public abstract class Player {
 
         this.board = board;
         this.opponent = opponent;
-        tokensPlayed = new Stack<>();
     }
 
 
@@ -141,40 +135,10 @@ public abstract class Player {
     }
 
     /**
-     * Removes the most recently recorded token from this player's token history.
-     * This method delegates to {@link Stack#removeElementAt(int)} indirectly via {@link Stack#remove}.
-     * It is typically called after {@link Board#removeToken(int)} to keep history consistent.
-     */
-    public void removeLastToken() {
-        this.tokensPlayed.removeLast();
-    }
-
-    /**
-     * Record a token as having been placed by this player.
-     * Typical call site: immediately after a successful {@link Board#placeToken(int, Player)}.
-     *
-     * @param token token instance placed on the board
-     */
-    public void addToken(Board.Token token) {
-        this.tokensPlayed.push(token);
-    }
-
-    /**
-     * Provides a stream of tokens placed by this player in insertion order (bottom to top of the stack).
-     * Consumers can use this stream for heuristic evaluation or printing.
-     *
-     * @return stream of {@link Board.Token} instances owned by this player
-     */
-    public Stream<Board.Token> getPlayersTokens() {
-        return this.tokensPlayed.stream();
-    }
-
-    /**
-     * Clears recorded token history for this player.
-     * Typically used when resetting the board for a new match.
+     * Prepares this player for a new match after the board has been reset.
+     * The base class keeps no per-match state; subclasses override this to forget theirs.
      */
     public void clearTokens() {
-        this.tokensPlayed.clear();
     }
 
 
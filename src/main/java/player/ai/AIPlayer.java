@@ -1,23 +1,78 @@
 package player.ai;
 
 import game.Board;
+import game.GameProperties;
+import game.GameState;
 import player.Player;
 import player.PlayerProperty;
 import player.ai.genetic.Genome;
 
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
 
 /**
- * AI-driven player implementation that selects moves using a Minimax search with alpha-beta pruning
+ * AI-driven player implementation that selects moves using a Minimax search with alpha-beta pruning (in negamax form)
  * and evaluates board states using genome-encoded heuristics.
  *
  * <p>
  * The AI uses a fixed move order {@link #TURN_ORDER} to evaluate central columns first when
- * exploring possible moves. The evaluation function is parameterized
+ * exploring possible moves ({@code 4, 5, 3, 6, 2, 7, 1} on a board with 7 columns). The evaluation function is parameterized
  * by a {@link Genome} instance which encodes weights for positional scores, major/minor threats,
- * and winning evaluation. The genome also supplies a positional scoring matrix used by
- * {@link #evalPosScore(Player)}.
+ * and winning evaluation. The genome also supplies a positional scoring matrix whose sums are
+ * tracked incrementally by a {@link PositionalAccumulator} during the search.
+ * </p>
+ *
+ * <p>
+ * Search results are kept in a {@link TranspositionTable}, so positions reached again through a different
+ * move order are not searched twice. The table is allocated on the first move (its size is configured in
+ * {@link SearchProperties}) and, like the history scores of the move ordering, kept for the following moves of
+ * the game: the search of the next move starts with the best move stored for its root and finds the subtrees
+ * searched two plies deeper before. Everything is cleared when a new game starts (see {@link #clearTokens()})
+ * or the genome changes. Leaf evaluations can additionally be kept in an {@link EvaluationCache} (see
+ * {@link SearchProperties#EVALUATION_CACHE_MB}). Positions covered by an {@link OpeningBook} built
+ * with the AI's genome are answered from the book without searching. Once at most
+ * {@link SearchProperties#ENDGAME_EMPTY_CELLS} cells are empty the heuristic search is replaced by the exact
+ * {@link EndgameSolver}.
+ * </p>
+ *
+ * <p>
+ * Moves are searched with iterative deepening up to {@link SearchProperties#SEARCH_DEPTH} plies, optionally
+ * limited by a time or node budget (see {@link #setSearchBudget(int, long, long)}).
+ * </p>
+ *
+ * <p>
+ * The search does not touch the shared {@link Board}: {@link #calculateMove()} takes a
+ * {@link GameState} snapshot of the current position and the search plays and takes back
+ * moves on that private copy only. The recursive search itself runs in a {@link SearchWorker}.
+ * </p>
+ *
+ * <p>
+ * Two parallel search modes are available (see {@link #setSearchMode(int)}):
+ * </p>
+ * <ul>
+ *   <li>{@link #ROOT_SPLIT_SEARCH}: each root move gets its own worker on a fork of the snapshot, all workers
+ *   share the transposition table and the best score found so far as their lower bound. The move is selected
+ *   exactly as in the sequential search.</li>
+ *   <li>{@link #LAZY_SMP_SEARCH}: helper threads run the same iterative deepening on forks of the snapshot,
+ *   every other helper one ply ahead, and fill the shared transposition table. The main search finds their
+ *   results there and plays its own move; results may differ between runs.</li>
+ * </ul>
+ *
+ * <p>
+ * With pondering enabled (see {@link #setPondering(boolean)}) the AI searches the replies of its opponent in
+ * the background after its own move. When it is to move again, pondering stops. If the reply that was played
+ * was already searched deep enough, its pondered best move is played at once; otherwise the search starts with
+ * the transposition table filled for the reply and the pondering time already spent.
  * </p>
  *
  * <p>Thread-safety: this class is not synchronized. Instances are intended to be used
@@ -25,10 +80,70 @@ import java.util.Random;
  */
 public class AIPlayer extends Player {
 
-    private static final int[] TURN_ORDER = new int[]{4, 5, 3, 6, 2, 7, 1};
+    /**
+     * All root moves are searched one after another by the calling thread.
+     */
+    public static final int SEQUENTIAL_SEARCH = 0;
+
+    /**
+     * The root moves are searched in parallel, one worker per move.
+     */
+    public static final int ROOT_SPLIT_SEARCH = 1;
+
+    /**
+     * The calling thread searches sequentially while helper threads search the same position and share
+     * the transposition table.
+     */
+    public static final int LAZY_SMP_SEARCH = 2;
+
+    private static final int[] TURN_ORDER = centerFirstOrder();
+
+    private static final int INFINITY = SearchWorker.INFINITY;
+
+    private static ExecutorService searchPool;
+
+    // Transposition tables of the training games of the current thread, one per player ID - 1 (see transpositionTable())
+    private static final ThreadLocal<TranspositionTable[]> TRAINING_TABLES =
+            ThreadLocal.withInitial(() -> new TranspositionTable[2]);
+    // Endgame solver of the training games of the current thread, shared by both players (see solveEndgame())
+    private static final ThreadLocal<EndgameSolver> TRAINING_SOLVER =
+            ThreadLocal.withInitial(() -> new EndgameSolver(SearchProperties.TRAINING_TRANSPOSITION_TABLE_MB));
 
     private Genome genome;
-    private byte[][] posScore;
+
+    private TranspositionTable transpositionTable;
+    private EvaluationCache evaluationCache;
+    private final SearchWorker[] workers = new SearchWorker[Math.max(COLS, SearchProperties.SEARCH_THREADS)];
+    private final int[] rootMoves = new int[COLS];
+    private final int[] rootValues = new int[COLS];
+    private GameState position;
+    private int ownSide;
+    private int searchMode = SEQUENTIAL_SEARCH;
+
+    private int maxDepth = SearchProperties.SEARCH_DEPTH;
+    private long timeBudgetMillis = 0;
+    private long nodeBudget = 0;
+    private long searchStart;
+    private volatile boolean aborted;
+    private int completedDepth;
+    private int rootScore;
+    private int rootMoveMask;
+    private int bestMoveMask;
+    private OpeningBook openingBook;
+    private EndgameSolver endgameSolver;
+
+    private boolean ponderEnabled;
+    private volatile boolean pondering;
+    private SearchWorker ponderWorker;
+    private Future<?> ponderTask;
+    private long ponderStart;
+    private final int[] ponderMoves = new int[COLS];
+    private final int[] ponderDepths = new int[COLS];
+    private final long[] ponderNodes = new long[COLS];
+    private boolean pondered;
+    private long ponderCreditNanos;
+    private int ponderCreditDepth;
+    private int minimumDepth = 1;
 
     /**
      * Constructs an AIPlayer that does not yet have an opponent reference.
@@ -62,173 +177,654 @@ public class AIPlayer extends Player {
     /**
      * Request the AI to perform a move. The AI calculates its best move using {@link #calculateMove()}
      * and places the token on the board. The return value indicates whether the placement succeeded.
+     * If pondering is enabled (see {@link #setPondering(boolean)}) the AI keeps searching in the background
+     * while the opponent thinks about its reply.
      *
      * @return {@code true} if the token was successfully placed; {@code false} otherwise
      */
     @Override
     public boolean makeMove() {
         int calculatedMove = calculateMove();
-        return board.placeToken(calculatedMove, this);
+        boolean placed = board.placeToken(calculatedMove, this);
+        if (placed && ponderEnabled && !board.getIsGameFinished()) {
+            startPondering();
+        }
+        return placed;
     }
 
     /**
-     * Determines the best column to play by iterating over {@link #TURN_ORDER}, performing
-     * hypothetical placements, running a Minimax search and selecting the column with the
-     * highest evaluation. Ties are broken pseudo-randomly to introduce some diversity.
+     * Determines the best column to play: stops pondering and plays the pondered move if it is good enough
+     * (see {@link #finishPondering(GameState)}), looks the current position up in the opening book, if one is set
+     * (see {@link #setOpeningBook(OpeningBook)}), solves it exactly if few cells are empty
+     * (see {@link #solveEndgame(GameState)}) and otherwise searches a snapshot of the board
+     * (see {@link #searchPosition(GameState)}).
      *
      * @return chosen 1-based column index to place the token, or -1 if no legal move found
      */
-    private int calculateMove() {
+    int calculateMove() {
+        GameState snapshot = board.snapshot(this);
+        if (ponderTask != null) {
+            int ponderedMove = finishPondering(snapshot);
+            if (ponderedMove != 0) {
+                return ponderedMove;
+            }
+        }
+        if (openingBook != null) {
+            int move = openingBook.probe(snapshot);
+            if (move != 0) {
+                return move;
+            }
+        }
+        if (ROWS * COLS - snapshot.getMoveCount() <= SearchProperties.ENDGAME_EMPTY_CELLS && EndgameSolver.isSupported()) {
+            return solveEndgame(snapshot);
+        }
+        return searchPosition(snapshot);
+    }
 
-        int bestMove = -1;
-        int score = Integer.MIN_VALUE;
-        int propabilityBound = 2;
+    /**
+     * Solves every move of a position exactly (see {@link EndgameSolver}) and selects the one with the best
+     * proven result: the fastest win, otherwise a draw, otherwise the slowest loss. Equally good moves are
+     * selected like in the search (see {@link #selectRootMove(int, int)}); the proven score is kept in
+     * {@code rootScore}. The solver and its table are kept for the following moves. Its results only depend on the
+     * position, so in training, where every game creates new players, all games of a thread share one solver.
+     *
+     * @param position position in which this AI is to move
+     * @return chosen 1-based column index, or -1 if no legal move was found
+     */
+    private int solveEndgame(GameState position) {
+        if (endgameSolver == null) {
+            endgameSolver = GameProperties.GAME_MODE == 3
+                    ? TRAINING_SOLVER.get()
+                    : new EndgameSolver(SearchProperties.TRANSPOSITION_TABLE_MB);
+        }
+        int side = this.getID() - 1;
+        long current = position.getStones(side);
+        long mask = position.getMask();
+
+        int count = 0;
+        for (int col : TURN_ORDER) {
+            if (position.canPlay(col)) {
+                rootMoves[count] = col;
+                rootValues[count++] = endgameSolver.solveMove(current, mask, position.getMoveCount(), col);
+            }
+        }
+        return selectRootMove(count, INFINITY);
+    }
 
-        for (int i = 0; i < TURN_ORDER.length; i++) {
-            if (board.placeToken(TURN_ORDER[i], this)) {
-                int value = minimax(8, false, Integer.MIN_VALUE, Integer.MAX_VALUE); //depth of the tree = depth + 1
-                board.removeToken(TURN_ORDER[i]);
-
-                if (value >= score) {
-                    if (value == score) {
-                        if (new Random().nextInt(propabilityBound) == 0) {
-                            bestMove = TURN_ORDER[i];
-                            propabilityBound++;
-                        }
-                    } else {
-                        bestMove = TURN_ORDER[i];
-                        score = value;
-                    }
-                }
+    /**
+     * Searches all moves of a position from scratch and returns the best ones, for building an opening book.
+     *
+     * @param position position in which this AI is to move; it is searched in place
+     * @return column mask of the moves that scored best in the last completed iteration (bit {@code col - 1})
+     */
+    int searchBestMoves(GameState position) {
+        resetSearchState();
+        searchPosition(position);
+        return bestMoveMask;
+    }
+
+    /**
+     * Determines the best column to play in a position in which this AI is to move, searching it with
+     * iterative deepening: complete searches of depth 1, 2, 3, ... plies (see {@link #searchAspiration(int, int)})
+     * until the maximum depth is reached or the time or node budget (see {@link #setSearchBudget(int, long, long)})
+     * runs out. The move of the last completed iteration is played; the first iteration always completes.
+     * Best moves, killer moves and history scores of the shallower iterations order the moves of the deeper ones;
+     * the first iteration starts with the best move stored for the position by an earlier search.
+     * With Lazy SMP the helper threads run alongside and are stopped once the move is found.
+     * <p>
+     * The transposition table starts a new generation of entries and the move ordering of the workers is aged,
+     * unless the AI pondered: then the search continues the generation of the pondering, and the whole pondering
+     * interval counts towards the time budget, while the iterations up to the depth pondered for the position,
+     * which mostly hit the table, are not interrupted.
+     *
+     * @param position the position to search; the search plays and takes back moves on it
+     * @return chosen 1-based column index to place the token, or -1 if no legal move found
+     */
+    private int searchPosition(GameState position) {
+        this.position = position;
+        this.ownSide = this.getID() - 1;
+        TranspositionTable table = transpositionTable();
+        if (!pondered) {
+            table.newSearch();
+        }
+        pondered = false;
+
+        int workerCount = switch (searchMode) {
+            case ROOT_SPLIT_SEARCH -> COLS;
+            case LAZY_SMP_SEARCH -> SearchProperties.SEARCH_THREADS;
+            default -> 1;
+        };
+        for (int i = 0; i < workers.length; i++) {
+            if (i < workerCount && workers[i] == null) {
+                workers[i] = new SearchWorker(this, TURN_ORDER);
+            }
+            if (workers[i] != null) {
+                workers[i].startSearch();
+            }
+            if (i < workerCount) {
+                workers[i].setPosition(i == 0 ? position : position.fork(), genome, table, evaluationCache(), ownSide);
             }
         }
 
+        this.searchStart = System.nanoTime() - ponderCreditNanos;
+        this.minimumDepth = Math.max(1, ponderCreditDepth);
+        this.ponderCreditNanos = 0;
+        this.ponderCreditDepth = 0;
+        this.aborted = false;
+        this.completedDepth = 0;
+
+        int bestMove = -1;
+        int storedMove = TranspositionTable.move(table.probe(position.getKey()));
+        int depthLimit = Math.min(maxDepth, ROWS * COLS - position.getMoveCount());
+        List<Future<?>> helpers = searchMode == LAZY_SMP_SEARCH ? startHelpers(workerCount, depthLimit, storedMove) : List.of();
+        for (int depth = 1; depth <= depthLimit; depth++) {
+            int move = searchAspiration(depth, bestMove != -1 ? bestMove : storedMove);
+            if (aborted) {
+                break;
+            }
+            bestMove = move;
+            completedDepth = depth;
+            bestMoveMask = rootMoveMask;
+        }
+        for (int i = 1; i <= helpers.size(); i++) {
+            workers[i].stop();
+        }
+        awaitSearch(helpers);
+
         return bestMove;
     }
 
     /**
-     * Recursive minimax search with alpha-beta pruning.
+     * Starts the Lazy SMP helpers on the search thread pool. Helper {@code i} runs iterative deepening from
+     * depth {@code 1 + i % 2} up to the depth limit with worker {@code i}, so half of the helpers search one ply
+     * ahead of the others. Their results are not used directly, only through the transposition table.
      *
-     * @param depth        remaining depth to search (0 = evaluate leaf)
-     * @param isMaximizing {@code true} if the current node is a maximizing node (AI player's turn)
-     * @param alpha        alpha value for pruning
-     * @param beta         beta value for pruning
-     * @return evaluation integer score for the current subtree
+     * @param workerCount number of workers including the one of the calling thread
+     * @param depthLimit  maximum search depth
+     * @param storedMove  best move stored for the position by an earlier search, or {@code 0}
+     * @return handles of the running helpers, in worker order
      */
-    public int minimax(int depth, boolean isMaximizing, int alpha, int beta) {
-        if (depth == 0 || board.getIsGameFinished()) {
-            return evaluateBoard() * (depth + 1);
+    private List<Future<?>> startHelpers(int workerCount, int depthLimit, int storedMove) {
+        List<Future<?>> helpers = new ArrayList<>(workerCount - 1);
+        for (int i = 1; i < workerCount; i++) {
+            SearchWorker worker = workers[i];
+            int firstDepth = 1 + i % 2;
+            helpers.add(searchPool().submit(() -> {
+                int move = storedMove;
+                for (int depth = firstDepth; depth <= depthLimit && !worker.isStopped(); depth++) {
+                    int result = worker.searchRoot(depth, move);
+                    if (result != -1) {
+                        move = result;
+                    }
+                }
+            }));
+        }
+        return helpers;
+    }
+
+    /**
+     * Starts pondering on the search thread pool: while the opponent is to move, a worker of its own searches
+     * every reply of the opponent with iterative deepening, one ply deeper per round over all replies, and fills
+     * the transposition table (see {@link #ponder(GameState, int)}). Positions answered by the opening book or the
+     * endgame solver are not pondered.
+     */
+    private void startPondering() {
+        GameState position = board.snapshot(getOpponent());
+        int emptyCells = ROWS * COLS - position.getMoveCount();
+        if ((openingBook != null && position.getMoveCount() + 1 < openingBook.getPlies())
+                || (emptyCells - 1 <= SearchProperties.ENDGAME_EMPTY_CELLS && EndgameSolver.isSupported())) {
+            return;
+        }
+
+        transpositionTable();
+        if (ponderWorker == null) {
+            ponderWorker = new SearchWorker(this, TURN_ORDER);
         }
+        ponderWorker.startSearch();
+        transpositionTable.newSearch();
+        Arrays.fill(ponderMoves, 0);
+        Arrays.fill(ponderDepths, 0);
+        Arrays.fill(ponderNodes, 0);
+        this.ponderStart = System.nanoTime();
+        this.aborted = false;
+        this.pondering = true;
+        int depthLimit = Math.min(maxDepth, emptyCells - 1);
+        ponderTask = searchPool().submit(() -> ponder(position, depthLimit));
+    }
 
-        if (isMaximizing) { //AI IS MAXIMIZING PLAYER
-            int maxEval = Integer.MIN_VALUE;
-            for (int col = 0; col < TURN_ORDER.length; col++) {
-                if (board.placeToken(TURN_ORDER[col], this)) {
-                    int eval = minimax(depth - 1, false, alpha, beta);
-                    board.removeToken(TURN_ORDER[col]);
-                    maxEval = Math.max(maxEval, eval);
-                    alpha = Math.max(alpha, maxEval);
-                    if (beta <= alpha) {
-                        break;
+    /**
+     * Searches the replies of the opponent until the depth limit is reached or pondering is stopped. Each reply
+     * is searched like a root position of this AI (see {@link SearchWorker#searchRoot(int, int)}); the best move
+     * and depth of its last completed iteration are kept in {@code ponderMoves} and {@code ponderDepths}, the
+     * nodes of all its iterations are summed in {@code ponderNodes}.
+     *
+     * @param position   position in which the opponent is to move, owned by the pondering thread
+     * @param depthLimit maximum search depth after the reply
+     */
+    private void ponder(GameState position, int depthLimit) {
+        SearchWorker worker = ponderWorker;
+        int side = this.getID() - 1;
+        for (int depth = 1; depth <= depthLimit; depth++) {
+            for (int reply : TURN_ORDER) {
+                if (worker.isStopped()) {
+                    return;
+                }
+                if (!position.play(reply)) {
+                    continue;
+                }
+                if (!position.isFinished()) {
+                    long nodes = worker.getNodes();
+                    worker.setPosition(position, genome, transpositionTable, evaluationCache(), side);
+                    int move = worker.searchRoot(depth, ponderDepths[reply - 1] > 0 ? ponderMoves[reply - 1] : -1);
+                    ponderNodes[reply - 1] += worker.getNodes() - nodes;
+                    if (move != -1) {
+                        ponderMoves[reply - 1] = move;
+                        ponderDepths[reply - 1] = depth;
                     }
                 }
+                position.undo(reply);
             }
-            return maxEval;
-        } else { //AI OPPONENT IS MINIMIZING PLAYER
-            int minEval = Integer.MAX_VALUE;
-            for (int col = 0; col < TURN_ORDER.length; col++) {
-                if(board.placeToken(TURN_ORDER[col], this.getOpponent())) {
-                    int eval = minimax(depth - 1, true, alpha, beta);
-                    board.removeToken(TURN_ORDER[col]);
-                    minEval = Math.min(minEval, eval);
-                    beta = Math.min(beta, minEval);
-                    if (beta <= alpha) {
-                        break;
-                    }
+        }
+    }
+
+    /**
+     * Stops pondering and takes over its result for the reply that was played. If the reply was searched to the
+     * depth limit of the position, or its pondering already used up the node budget or the whole pondering
+     * interval the time budget, the pondered best move is returned and no search is needed. Otherwise the next
+     * search continues from the pondering (see {@link #searchPosition(GameState)}).
+     *
+     * @param position position in which this AI is to move after the reply of the opponent
+     * @return pondered 1-based column index to play, or {@code 0} if the position still has to be searched
+     */
+    private int finishPondering(GameState position) {
+        stopPondering();
+        long elapsed = System.nanoTime() - ponderStart;
+        int reply = position.getMoveCount() > 0 ? position.getMove(position.getMoveCount() - 1) : 0;
+        int depth = reply > 0 ? ponderDepths[reply - 1] : 0;
+        if (depth > 0 && position.canPlay(ponderMoves[reply - 1])) {
+            int depthLimit = Math.min(maxDepth, ROWS * COLS - position.getMoveCount());
+            if (depth >= depthLimit
+                    || (nodeBudget > 0 && ponderNodes[reply - 1] >= nodeBudget)
+                    || (timeBudgetMillis > 0 && elapsed >= timeBudgetMillis * 1_000_000)) {
+                completedDepth = depth;
+                return ponderMoves[reply - 1];
+            }
+        }
+        pondered = true;
+        ponderCreditNanos = elapsed;
+        ponderCreditDepth = depth;
+        return 0;
+    }
+
+    /**
+     * Stops pondering, if running, and waits until the pondering thread has finished.
+     */
+    private void stopPondering() {
+        if (ponderTask == null) {
+            return;
+        }
+        ponderWorker.stop();
+        awaitSearch(List.of(ponderTask));
+        ponderTask = null;
+        pondering = false;
+    }
+
+    /**
+     * Runs one iteration of the root search. In principal variation search mode every iteration after
+     * the first starts with an aspiration window of {@link SearchProperties#ASPIRATION_WINDOW} around the
+     * score of the previous iteration; if the root score falls outside, the failing side of the window is
+     * opened and the iteration is searched again.
+     *
+     * @param depth        search depth in plies including the root move
+     * @param previousMove best move of the previous iteration, or of an earlier search of the position, or -1
+     * @return chosen 1-based column index, or -1 if the search was aborted
+     */
+    private int searchAspiration(int depth, int previousMove) {
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        if (SearchProperties.PRINCIPAL_VARIATION_SEARCH && completedDepth > 0) {
+            alpha = (int) Math.max(-INFINITY, (long) rootScore - SearchProperties.ASPIRATION_WINDOW);
+            beta = (int) Math.min(INFINITY, (long) rootScore + SearchProperties.ASPIRATION_WINDOW);
+        }
+
+        while (true) {
+            int move = searchMode == ROOT_SPLIT_SEARCH
+                    ? searchRootParallel(depth, alpha, beta, previousMove)
+                    : searchRoot(depth, alpha, beta, previousMove);
+            if (aborted) {
+                return -1;
+            }
+            if (rootScore <= alpha) {
+                alpha = -INFINITY;
+            } else if (rootScore >= beta) {
+                beta = INFINITY;
+            } else {
+                return move;
+            }
+        }
+    }
+
+    /**
+     * Searches every root move to the given depth, one after another, and selects the best one
+     * (see {@link #selectRootMove(int, int)}).
+     * <p>
+     * The best move of the previous iteration is searched first, the other moves follow in the order of
+     * {@link MoveOrdering}. In principal variation search mode each later move is first searched with the
+     * window {@code (best - 1, best + 1)}, which tells worse, equal and better moves apart, and only a better
+     * move is searched again for its exact score. Ties are therefore recognized exactly as with full windows.
+     *
+     * @param depth        search depth in plies including the root move
+     * @param alpha        lower bound of the root window
+     * @param beta         upper bound of the root window
+     * @param previousMove best move of the previous iteration, or of an earlier search of the position, or -1
+     * @return chosen 1-based column index, or -1 if no legal move was found or the search was aborted;
+     *         if the root score is outside the window, the move is not valid
+     */
+    private int searchRoot(int depth, int alpha, int beta, int previousMove) {
+        SearchWorker worker = workers[0];
+        int count = worker.orderRootMoves(previousMove);
+        System.arraycopy(worker.getRootMoves(), 0, rootMoves, 0, count);
+
+        int score = -INFINITY;
+        for (int i = 0; i < count; i++) {
+            int value;
+            if (SearchProperties.PRINCIPAL_VARIATION_SEARCH && score > alpha) {
+                value = worker.searchMove(rootMoves[i], depth, score - 1, score + 1);
+                if (value > score && !aborted) {
+                    value = worker.searchMove(rootMoves[i], depth, score, beta);
                 }
+            } else {
+                value = worker.searchMove(rootMoves[i], depth, alpha, beta);
+            }
+            if (aborted) {
+                return -1;
+            }
+            rootValues[i] = value;
+            if (value >= beta) {
+                count = i + 1;
+                break;
             }
-            return minEval;
+            score = Math.max(score, value);
         }
+
+        return selectRootMove(count, beta);
     }
 
+    /**
+     * Searches the root moves to the given depth in parallel and selects the best one
+     * (see {@link #selectRootMove(int, int)}).
+     * <p>
+     * The first move is searched alone with the root window to establish a score. The remaining moves are then
+     * searched concurrently, each by its own {@link SearchWorker}, on the shared search thread pool
+     * (see {@link SearchProperties#SEARCH_THREADS}). They share the best score found so far: a move starting
+     * its search uses it as lower bound just like the sequential search, so every move whose score may tie or
+     * beat the final best score is searched to its exact value and the move selection is the same.
+     *
+     * @param depth        search depth in plies including the root move
+     * @param alpha        lower bound of the root window
+     * @param beta         upper bound of the root window
+     * @param previousMove best move of the previous iteration, or of an earlier search of the position, or -1
+     * @return chosen 1-based column index, or -1 if no legal move was found or the search was aborted;
+     *         if the root score is outside the window, the move is not valid
+     */
+    private int searchRootParallel(int depth, int alpha, int beta, int previousMove) {
+        int count = workers[0].orderRootMoves(previousMove);
+        System.arraycopy(workers[0].getRootMoves(), 0, rootMoves, 0, count);
+        if (count == 0) {
+            rootScore = -INFINITY;
+            return -1;
+        }
 
+        rootValues[0] = workers[0].searchMove(rootMoves[0], depth, alpha, beta);
+        if (aborted) {
+            return -1;
+        }
+
+        if (rootValues[0] < beta && count > 1) {
+            AtomicInteger best = new AtomicInteger(rootValues[0]);
+            List<Future<?>> tasks = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                int index = i;
+                tasks.add(searchPool().submit(() -> {
+                    rootValues[index] = searchSharedBound(workers[index], rootMoves[index], depth, alpha, beta, best);
+                }));
+            }
+            awaitSearch(tasks);
+            if (aborted) {
+                return -1;
+            }
+        }
+
+        return selectRootMove(count, beta);
+    }
 
     /**
-     * Evaluates the current board from this AI's perspective using the genome-provided heuristics.
-     * The method:
-     * <ol>
-     *   <li>refreshes the {@link #posScore} table from the genome</li>
-     *   <li>accumulates positional scores for both players weighted by genome parameters</li>
-     *   <li>adds major/minor threat contributions for both players</li>
-     *   <li>if the game is finished, adds win/loss weights</li>
-     * </ol>
+     * Searches one root move of the parallel root search with the best score found so far by all workers as
+     * lower bound, and raises the shared score if the move is better.
      *
-     * @return integer evaluation score (higher = better for this AI)
+     * @param worker the worker searching the move
+     * @param move   1-based column of the move
+     * @param depth  search depth in plies including the root move
+     * @param alpha  lower bound of the root window
+     * @param beta   upper bound of the root window
+     * @param best   best score found so far, shared by all workers
+     * @return score of the move; if it is below the shared score at the start of its search it is only an upper bound;
+     *         {@code -INFINITY} if another move already failed high and the move was skipped
      */
-    private int evaluateBoard() {
-        this.posScore = genome.posScore();
+    private int searchSharedBound(SearchWorker worker, int move, int depth, int alpha, int beta, AtomicInteger best) {
+        int score = best.get();
+        if (score >= beta) {
+            return -INFINITY;
+        }
 
-        int evaluationScore = 0;
+        int lowerBound;
+        int value;
+        if (score <= alpha) {
+            lowerBound = alpha;
+            value = worker.searchMove(move, depth, alpha, beta);
+        } else if (SearchProperties.PRINCIPAL_VARIATION_SEARCH) {
+            lowerBound = score - 1;
+            value = worker.searchMove(move, depth, score - 1, score + 1);
+            if (value > score && !aborted) {
+                lowerBound = score;
+                value = worker.searchMove(move, depth, score, beta);
+            }
+        } else {
+            lowerBound = score - 1;
+            value = worker.searchMove(move, depth, score - 1, beta);
+        }
 
-        evaluationScore += evalPosScore(this) * genome.posScoreWeightPlayer();
-        evaluationScore += evalPosScore(this.getOpponent()) * genome.posScoreWeightOpponent();
+        if (value > lowerBound && !aborted) {
+            best.accumulateAndGet(value, Math::max);
+        }
+        return value;
+    }
 
-        evaluationScore += evalMajorThreats(this) * genome.majorWeightPlayer();
-        evaluationScore += evalMajorThreats(this.getOpponent()) * genome.majorWeightOpponent();
+    /**
+     * Selects the root move with the highest score from the results of an iteration, in root move order.
+     * Ties are broken pseudo-randomly to introduce some diversity. The score of the selected move is kept
+     * in {@code rootScore}, the columns of all moves with that score in {@code rootMoveMask}. A move whose score reaches {@code beta} is returned at once.
+     *
+     * @param count number of searched root moves
+     * @param beta  upper bound of the root window
+     * @return chosen 1-based column index, or -1 if there is no root move
+     */
+    private int selectRootMove(int count, int beta) {
+        int bestMove = -1;
+        int score = -INFINITY;
+        int propabilityBound = 2;
 
-        evaluationScore += evalMinorThreats(this) * genome.minorWeightPlayer();
-        evaluationScore += evalMinorThreats(this.getOpponent()) * genome.minorWeightOpponent();
+        for (int i = 0; i < count; i++) {
+            int value = rootValues[i];
+            if (value >= beta) {
+                rootScore = value;
+                return rootMoves[i];
+            }
 
-        if (board.getIsGameFinished() && Objects.nonNull(board.getHasWon())) {
-            evaluationScore += evalGameWon(this) * genome.winWeightPlayer();
-            evaluationScore += evalGameWon(this.getOpponent()) * genome.winWeightOpponent();
+            if (value >= score) {
+                if (value == score) {
+                    if (new Random().nextInt(propabilityBound) == 0) {
+                        bestMove = rootMoves[i];
+                        propabilityBound++;
+                    }
+                } else {
+                    bestMove = rootMoves[i];
+                    score = value;
+                }
+            }
         }
 
-        return evaluationScore;
+        rootMoveMask = 0;
+        for (int i = 0; i < count; i++) {
+            if (rootValues[i] == score) {
+                rootMoveMask |= 1 << (rootMoves[i] - 1);
+            }
+        }
+        rootScore = score;
+        return bestMove;
     }
 
+
+
+
     /**
-     * Computes the aggregate positional score for all tokens owned by the given player
-     * by summing corresponding entries in the {@link #posScore} table.
+     * Checks whether the time or node budget of the current move is used up. The first iteration, or all iterations
+     * up to the depth pondered for the position, are never interrupted; pondering has no budget.
      *
-     * @param player player whose tokens are scored
-     * @return sum of positional scores for the player's tokens
+     * @return {@code true} if a configured budget is exhausted
      */
-    private int evalPosScore(Player player) {
-        return player.getPlayersTokens().map(t -> posScore[t.row][t.col]).mapToInt(Byte::intValue).sum();
+    boolean isBudgetExhausted() {
+        if (completedDepth < minimumDepth || pondering) {
+            return false;
+        }
+        if (nodeBudget > 0 && getSearchedNodes() >= nodeBudget) {
+            return true;
+        }
+        return timeBudgetMillis > 0 && System.nanoTime() - searchStart >= timeBudgetMillis * 1_000_000;
     }
 
     /**
-     * Returns the genome-encoded value awarded when the specified player is the winner.
+     * Aborts the current move search in all workers.
+     */
+    void abortSearch() {
+        aborted = true;
+    }
+
+    /**
+     * Returns whether the current move search has been aborted.
      *
-     * @param player player to evaluate (compared to {@link Board#getHasWon()})
-     * @return genome.winEvaluation() if the player has won; otherwise 0
+     * @return {@code true} once the search budget ran out
      */
-    private int evalGameWon(Player player) {
-        return board.getHasWon().getID() == player.getID() ? genome.winEvaluation() : 0;
+    boolean isSearchAborted() {
+        return aborted;
     }
 
     /**
-     * Proxy to {@link Board#getMajorThreats(Player)} for the given player.
+     * Returns the transposition table, allocating it on first use. Training creates new players for every game,
+     * so there a player takes over the table of the previous player with the same ID on the same thread instead,
+     * cleared for its genome; a training thread plays one game at a time.
      *
-     * @param player player to evaluate
-     * @return major threat count from the board heuristic
+     * @return transposition table shared by all workers of this AI
      */
-    private int evalMajorThreats(Player player) {
-        return board.getMajorThreats(player);
+    private TranspositionTable transpositionTable() {
+        if (transpositionTable == null) {
+            if (GameProperties.GAME_MODE == 3) {
+                TranspositionTable[] tables = TRAINING_TABLES.get();
+                int slot = this.getID() - 1;
+                if (tables[slot] == null) {
+                    tables[slot] = new TranspositionTable(SearchProperties.TRAINING_TRANSPOSITION_TABLE_MB);
+                } else {
+                    tables[slot].clear();
+                }
+                transpositionTable = tables[slot];
+            } else {
+                transpositionTable = new TranspositionTable(SearchProperties.TRANSPOSITION_TABLE_MB);
+            }
+        }
+        return transpositionTable;
     }
 
     /**
-     * Proxy to {@link Board#getMinorThreats(Player)} for the given player.
+     * Returns the leaf evaluation cache, allocating it on first use.
      *
-     * @param player player to evaluate
-     * @return minor threat count from the board heuristic
+     * @return evaluation cache shared by all workers of this AI, or {@code null} if disabled in {@link SearchProperties}
      */
-    private int evalMinorThreats(Player player) {
-        return board.getMinorThreats(player);
+    private EvaluationCache evaluationCache() {
+        int megabytes = GameProperties.GAME_MODE == 3
+                ? SearchProperties.TRAINING_EVALUATION_CACHE_MB
+                : SearchProperties.EVALUATION_CACHE_MB;
+        if (evaluationCache == null && megabytes > 0) {
+            evaluationCache = new EvaluationCache(megabytes);
+        }
+        return evaluationCache;
     }
 
+    /**
+     * Waits until the given search tasks have finished. If the calling thread is interrupted the search is aborted.
+     *
+     * @param tasks handles of tasks submitted to the search thread pool
+     * @throws IllegalStateException if a task failed
+     */
+    private void awaitSearch(List<Future<?>> tasks) {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted = true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("parallel search failed", e.getCause());
+        }
+    }
 
+    /**
+     * Returns the thread pool of the parallel searches, shared by all AI players. It is created on first use
+     * with {@link SearchProperties#SEARCH_THREADS} daemon threads.
+     *
+     * @return search thread pool
+     */
+    private static synchronized ExecutorService searchPool() {
+        if (searchPool == null) {
+            searchPool = Executors.newFixedThreadPool(SearchProperties.SEARCH_THREADS, task -> {
+                Thread thread = new Thread(task, "search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return searchPool;
+    }
+
+
+
+    /**
+     * Ends the pondering of the finished game and forgets its search results
+     * (see {@link #resetSearchState()}).
+     */
+    @Override
+    public void clearTokens() {
+        super.clearTokens();
+        stopPondering();
+        resetSearchState();
+    }
+
+    /**
+     * Clears the transposition table and the move ordering of all workers, so the next search starts cold.
+     * The endgame solver keeps its table, its results only depend on the position.
+     */
+    private void resetSearchState() {
+        if (transpositionTable != null) {
+            transpositionTable.clear();
+        }
+        for (SearchWorker worker : workers) {
+            if (worker != null) {
+                worker.clear();
+            }
+        }
+        if (ponderWorker != null) {
+            ponderWorker.clear();
+        }
+    }
 
     /**
      * Replace the genome used by this AI. The caller is responsible for providing
@@ -237,7 +833,12 @@ public class AIPlayer extends Player {
      * @param genome new genome to use for evaluation
      */
     public void setGenome(Genome genome) {
+        stopPondering();
         this.genome = genome;
+        if (openingBook != null && !openingBook.matches(genome)) {
+            openingBook = null;
+        }
+        resetSearchState();
     }
 
     /**
@@ -248,4 +849,121 @@ public class AIPlayer extends Player {
     public Genome getGenome() {
         return this.genome;
     }
+
+    /**
+     * Configures the iterative deepening search. Without a budget every move is searched to {@code maxDepth};
+     * with a budget the search deepens until the budget is exhausted and plays the move of the deepest
+     * completed iteration.
+     *
+     * @param maxDepth         maximum search depth in plies (at least 1)
+     * @param timeBudgetMillis wall-clock budget per move in milliseconds, {@code 0} for no limit
+     * @param nodeBudget       number of searched nodes per move, {@code 0} for no limit
+     */
+    public void setSearchBudget(int maxDepth, long timeBudgetMillis, long nodeBudget) {
+        this.maxDepth = Math.max(1, maxDepth);
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Returns the depth of the last completed iteration of the most recent move search, or of the pondering
+     * if its move was played without a search.
+     *
+     * @return search depth in plies
+     */
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+
+    /**
+     * Sets the opening book to consult before searching. The book must have been built with this AI's genome,
+     * otherwise it is ignored.
+     *
+     * @param openingBook opening book or {@code null} to always search
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook != null && openingBook.matches(genome) ? openingBook : null;
+    }
+
+    /**
+     * Enables or disables pondering: searching the opponent's replies in the background while the opponent is to
+     * move, e.g. while a human player types its move. The next search reuses the results.
+     *
+     * @param ponderEnabled {@code true} to ponder after every own move
+     */
+    public void setPondering(boolean ponderEnabled) {
+        this.ponderEnabled = ponderEnabled;
+        if (!ponderEnabled) {
+            stopPondering();
+        }
+    }
+
+    /**
+     * Selects how the search uses threads. The parallel modes run on a thread pool of
+     * {@link SearchProperties#SEARCH_THREADS} threads shared by all AI players.
+     *
+     * @param searchMode {@link #SEQUENTIAL_SEARCH}, {@link #ROOT_SPLIT_SEARCH} or {@link #LAZY_SMP_SEARCH}
+     */
+    public void setSearchMode(int searchMode) {
+        this.searchMode = searchMode;
+    }
+
+    /**
+     * Returns the number of nodes visited by the most recent move search, summed over all workers.
+     *
+     * @return node count
+     */
+    public long getSearchedNodes() {
+        long nodes = 0;
+        for (SearchWorker worker : workers) {
+            if (worker != null) {
+                nodes += worker.getNodes();
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the transposition table of this AI, e.g. to read its hit/miss statistics.
+     *
+     * @return transposition table or {@code null} if this AI has not searched yet
+     */
+    public TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
+
+
+    /**
+     * Returns the leaf evaluation cache of this AI, e.g. to read its hit/miss statistics. Its entries are tagged
+     * with the genome and kept across moves and games.
+     *
+     * @return evaluation cache or {@code null} if this AI has not searched yet or the cache is disabled
+     */
+    public EvaluationCache getEvaluationCache() {
+        return this.evaluationCache;
+    }
+
+
+
+    /**
+     * Builds the move order for the configured number of columns: the center column first, then
+     * alternating right and left neighbours moving outward.
+     *
+     * @return 1-based column indices ordered from the center to the edges
+     */
+    private static int[] centerFirstOrder() {
+        int[] order = new int[COLS];
+        int center = (COLS + 1) / 2;
+        order[0] = center;
+        for (int i = 1, offset = 1; i < COLS; offset++) {
+            if (center + offset <= COLS) {
+                order[i++] = center + offset;
+            }
+            if (center - offset >= 1) {
+                order[i++] = center - offset;
+            }
+        }
+        return order;
+    }
 }
@@ -0,0 +1,298 @@
+package player.ai;
+
+import game.BitBoard;
+import game.GameState;
+
+import java.util.Arrays;
+
+import static game.BitBoard.BOTTOM_MASK;
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
+
+/**
+ * Exact solver for Connect Four positions, used by {@link AIPlayer} once few empty cells are left.
+ * <p>
+ * The solver ignores the genome and only knows won, drawn and lost positions. A score is from the point of view
+ * of the side to move: {@code 0} for a draw, positive for a win, negative for a loss. Its absolute value grows
+ * the earlier the game ends, {@code (ROWS * COLS + 1 - n) / 2} if the side to move wins with the {@code n + 1}-th
+ * move of the game, so the highest score is the fastest win and the least negative one the slowest loss.
+ * <p>
+ * The search works on the bitboards of the side to move and of all occupied cells only:
+ * <ul>
+ *     <li>moves that let the opponent win at once (playing below one of its threat cells, or not blocking its
+ *     immediate win) are never tried, two immediate wins of the opponent lose at once</li>
+ *     <li>the score is bounded by the number of remaining moves before the search starts</li>
+ *     <li>{@link #solve(GameState)} narrows the score down with null-window searches</li>
+ *     <li>moves creating more threat cells are tried first, ties in center-first order</li>
+ *     <li>proven upper bounds are kept in a table of its own, indexed by the exact position key
+ *     {@code current + mask + BOTTOM_MASK}; entries do not depend on the root and stay valid between moves</li>
+ * </ul>
+ * The solver requires the sentinel bitboard layout (see {@link BitBoard#SENTINEL} and {@link #isSupported()}).
+ *
+ * <p>Thread-safety: this class is not synchronized; each {@link AIPlayer} uses its own instance.</p>
+ */
+public class EndgameSolver {
+
+    private static final int CELLS = ROWS * COLS;
+
+    /**
+     * Lowest possible score: the side to move loses at the opponent's fourth token.
+     */
+    public static final int MIN_SCORE = -CELLS / 2 + 3;
+
+    /**
+     * Highest possible score: the side to move wins with its fourth token.
+     */
+    public static final int MAX_SCORE = (CELLS + 1) / 2 - 3;
+
+    private static final int ENTRY_BYTES = Long.BYTES + 1;
+
+    private static final int[] COLUMN_ORDER = centerFirstColumns();
+
+    private final long[] keys;
+    private final byte[] values;
+    private final int indexMask;
+
+    private final long[][] moveBuffer = new long[CELLS + 1][COLS];
+    private final int[][] scoreBuffer = new int[CELLS + 1][COLS];
+
+    private long nodes;
+
+
+
+    /**
+     * Constructs a solver with an empty table using at most the given amount of memory.
+     *
+     * @param megabytes memory budget of the table in MB (at least 1); the entry count is rounded down to a power of two
+     * @throws IllegalStateException if the board does not use the sentinel bitboard layout
+     */
+    public EndgameSolver(int megabytes) {
+        if (!isSupported()) {
+            throw new IllegalStateException("the endgame solver requires the sentinel bitboard layout");
+        }
+        long bytes = Math.max(1, megabytes) * (1L << 20);
+        this.keys = new long[Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE, bytes / ENTRY_BYTES))];
+        this.values = new byte[keys.length];
+        this.indexMask = keys.length - 1;
+    }
+
+    /**
+     * Indicates whether the solver supports the configured board size: its position keys need the sentinel
+     * bitboard layout, i.e. {@code (ROWS + 1) * COLS <= 64}.
+     *
+     * @return {@code true} if a solver can be constructed
+     */
+    public static boolean isSupported() {
+        return BitBoard.SENTINEL;
+    }
+
+    /**
+     * Removes all table entries.
+     */
+    public void clear() {
+        Arrays.fill(values, (byte) 0);
+    }
+
+
+
+    /**
+     * Solves a position.
+     *
+     * @param position an unfinished position, with the side to move set
+     * @return exact score from the point of view of the side to move
+     */
+    public int solve(GameState position) {
+        int side = position.getSideToMove();
+        return solve(position.getStones(side), position.getMask(), position.getMoveCount());
+    }
+
+    /**
+     * Solves a position given as bitboards.
+     *
+     * @param current tokens of the side to move
+     * @param mask    all occupied cells
+     * @param moves   number of tokens on the board
+     * @return exact score from the point of view of the side to move
+     */
+    public int solve(long current, long mask, int moves) {
+        if (winningMoves(current, mask) != 0) {
+            return (CELLS + 1 - moves) / 2;
+        }
+
+        int min = -(CELLS - moves) / 2;
+        int max = (CELLS + 1 - moves) / 2;
+        while (min < max) {
+            // null-window probes, biased towards 0 first as most positions are close to a draw
+            int med = min + (max - min) / 2;
+            if (med <= 0 && min / 2 < med) {
+                med = min / 2;
+            } else if (med >= 0 && max / 2 > med) {
+                med = max / 2;
+            }
+            int result = negamax(current, mask, moves, med, med + 1);
+            if (result <= med) {
+                max = result;
+            } else {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Returns the score of playing a move in a position and solving the rest.
+     *
+     * @param current tokens of the side to move
+     * @param mask    all occupied cells
+     * @param moves   number of tokens on the board
+     * @param col     1-based column of the move, which must be playable
+     * @return exact score of the move from the point of view of the side playing it
+     */
+    public int solveMove(long current, long mask, int moves, int col) {
+        long move = (mask + BitBoard.bottomMask(col - 1)) & BitBoard.columnMask(col - 1);
+        if ((winningMoves(current, mask) & move) != 0) {
+            return (CELLS + 1 - moves) / 2;
+        }
+        return -solve(current ^ mask, mask | move, moves + 1);
+    }
+
+    /**
+     * Null-window capable negamax over won, drawn and lost positions. The side to move must not be able to
+     * win with its next move.
+     *
+     * @param current tokens of the side to move
+     * @param mask    all occupied cells
+     * @param moves   number of tokens on the board
+     * @param alpha   lower bound of the window
+     * @param beta    upper bound of the window
+     * @return exact score if it lies within the window; otherwise an upper bound ({@code <= alpha}) or a lower
+     *         bound ({@code >= beta})
+     */
+    private int negamax(long current, long mask, int moves, int alpha, int beta) {
+        nodes++;
+
+        long candidates = nonLosingMoves(current, mask);
+        if (candidates == 0) {
+            return -(CELLS - moves) / 2;
+        }
+        if (moves >= CELLS - 2) {
+            return 0;
+        }
+
+        // the opponent cannot win with its next move, so the side to move loses two moves later at the earliest
+        int min = -(CELLS - 2 - moves) / 2;
+        if (alpha < min) {
+            alpha = min;
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+
+        // the side to move cannot win with this move, so it wins with its next move at the earliest
+        int max = (CELLS - 1 - moves) / 2;
+        long key = current + mask + BOTTOM_MASK;
+        int index = (int) (key ^ (key >>> 32)) & indexMask;
+        if (values[index] != 0 && keys[index] == key) {
+            max = values[index] + MIN_SCORE - 1;
+        }
+        if (beta > max) {
+            beta = max;
+            if (alpha >= beta) {
+                return beta;
+            }
+        }
+
+        long[] moveList = moveBuffer[moves];
+        int[] scores = scoreBuffer[moves];
+        int count = 0;
+        for (int innerCol : COLUMN_ORDER) {
+            long move = candidates & BitBoard.columnMask(innerCol);
+            if (move == 0) {
+                continue;
+            }
+            int score = Long.bitCount(BitBoard.threatCells(current | move, mask | move));
+            int i = count++;
+            while (i > 0 && scores[i - 1] < score) {
+                moveList[i] = moveList[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            moveList[i] = move;
+            scores[i] = score;
+        }
+
+        for (int i = 0; i < count; i++) {
+            long move = moveList[i];
+            int score = -negamax(current ^ mask, mask | move, moves + 1, -beta, -alpha);
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+
+        keys[index] = key;
+        values[index] = (byte) (alpha - MIN_SCORE + 1);
+        return alpha;
+    }
+
+
+
+    /**
+     * Returns the playable cells that win at once for the given side.
+     *
+     * @param current tokens of the side
+     * @param mask    all occupied cells
+     * @return bitboard of winning moves
+     */
+    private static long winningMoves(long current, long mask) {
+        return BitBoard.threatCells(current, mask) & BitBoard.playableCells(mask);
+    }
+
+    /**
+     * Returns the moves of the side to move that do not let the opponent win with its next move: if the
+     * opponent threatens to win at once, only the blocking move, and never the cell right below a threat
+     * cell of the opponent.
+     *
+     * @param current tokens of the side to move
+     * @param mask    all occupied cells
+     * @return bitboard of the candidate moves, {@code 0} if every move loses at once
+     */
+    private static long nonLosingMoves(long current, long mask) {
+        long opponentThreats = BitBoard.threatCells(current ^ mask, mask);
+        long candidates = BitBoard.playableCells(mask);
+        long forced = candidates & opponentThreats;
+        if (forced != 0) {
+            if ((forced & (forced - 1)) != 0) {
+                return 0;
+            }
+            candidates = forced;
+        }
+        return candidates & ~(opponentThreats >>> 1);
+    }
+
+
+
+    /**
+     * Returns the number of nodes visited since the solver was constructed.
+     *
+     * @return node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Builds the 0-based column order from the center to the edges.
+     *
+     * @return 0-based column indices ordered from the center to the edges
+     */
+    private static int[] centerFirstColumns() {
+        int[] order = new int[COLS];
+        for (int i = 0; i < COLS; i++) {
+            order[i] = COLS / 2 + (1 - 2 * (i % 2)) * (i + 1) / 2;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,136 @@
+package player.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Direct-mapped cache of leaf evaluations of an {@link AIPlayer}, separate from its {@link TranspositionTable}.
+ * <p>
+ * A leaf evaluation only depends on the tokens on the board, the genome and the side of the AI, so the same leaf
+ * reached through different move orders, iterations or moves is evaluated once. Entries are keyed by the position
+ * hash (see {@link game.GameState#getHash()}) XOR the identity of the genome
+ * (see {@link player.ai.genetic.Genome#getId()}), so results of another genome never verify. The slot of a key is
+ * selected by its low bits; a new evaluation always replaces the stored one. Each slot holds the evaluation and the
+ * key XOR the evaluation, with the lowest key bit, which the slot already implies, set as occupancy bit, so an empty
+ * slot never verifies. Probes are counted as hits and misses.
+ *
+ * <p>Thread-safety: this class is not synchronized, but the search workers of an {@link AIPlayer} may share one
+ * instance without locking. A slot torn by two threads writing it at once no longer verifies against any key and
+ * reads as a miss. {@link #clear()} must not run concurrently with a search.</p>
+ */
+public class EvaluationCache {
+
+    /**
+     * Returned by {@link #probe(long)} if the cache holds no evaluation for the key.
+     */
+    public static final long MISS = Long.MIN_VALUE;
+
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final long[] keys;
+    private final int[] evaluations;
+    private final int indexMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+
+
+    /**
+     * Constructs an empty cache using at most the given amount of memory.
+     *
+     * @param megabytes memory budget in MB (at least 1); the entry count is rounded down to a power of two
+     */
+    public EvaluationCache(int megabytes) {
+        long bytes = Math.max(1, megabytes) * (1L << 20);
+        this.keys = new long[Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE, bytes / ENTRY_BYTES))];
+        this.evaluations = new int[keys.length];
+        this.indexMask = keys.length - 1;
+    }
+
+    /**
+     * Removes all entries and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(evaluations, 0);
+        resetStatistics();
+    }
+
+    /**
+     * Looks up the evaluation of a position.
+     *
+     * @param key position hash XOR genome identity
+     * @return stored evaluation, or {@link #MISS} if the cache holds none for the key
+     */
+    public long probe(long key) {
+        int index = (int) key & indexMask;
+        int evaluation = evaluations[index];
+        if ((keys[index] ^ evaluation) == (key | 1)) {
+            hits.increment();
+            return evaluation;
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    /**
+     * Stores the evaluation of a position, replacing the entry of its slot.
+     *
+     * @param key        position hash XOR genome identity
+     * @param evaluation evaluation of the position
+     */
+    public void store(long key, int evaluation) {
+        int index = (int) key & indexMask;
+        keys[index] = (key | 1) ^ evaluation;
+        evaluations[index] = evaluation;
+    }
+
+
+
+    /**
+     * Returns the number of entries the cache can hold.
+     *
+     * @return cache size (power of two)
+     */
+    public int getSize() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the number of successful probes since the last reset.
+     *
+     * @return hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of unsuccessful probes since the last reset.
+     *
+     * @return miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the share of successful probes since the last reset.
+     *
+     * @return hits / (hits + misses), or {@code 0} if nothing was probed
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long probes = hitCount + misses.sum();
+        return probes == 0 ? 0 : (double) hitCount / probes;
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -0,0 +1,169 @@
+package player.ai;
+
+import game.BitBoard;
+import game.GameState;
+
+import java.util.Arrays;
+
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
+
+/**
+ * Dynamic move ordering for the search of an {@link AIPlayer}.
+ * <p>
+ * The legal moves of a node are tried in this order:
+ * <ol>
+ *     <li>the best move stored in the transposition table for the position (the principal variation move
+ *     of the previous iteration)</li>
+ *     <li>the two killer moves of the ply, i.e. the latest moves that caused a beta cutoff at the same
+ *     distance from the root</li>
+ *     <li>all other columns by descending history score of the side to move; columns with equal score keep
+ *     the static center-first order</li>
+ * </ol>
+ * The history score of a column grows by {@code depth * depth} every time it causes a beta cutoff, so moves
+ * that refuted large subtrees are preferred. Moves are written into a per-ply buffer, ordering does not allocate.
+ *
+ * <p>Thread-safety: this class is not synchronized; each search uses its own instance.</p>
+ */
+public class MoveOrdering {
+
+    private static final int TT_MOVE_SCORE = Integer.MAX_VALUE;
+    private static final int KILLER_SCORE = Integer.MAX_VALUE - 2;
+
+    private final int[] staticOrder;
+    private final int[][] killers = new int[ROWS * COLS + 1][2];
+    private final int[][] history = new int[2][COLS];
+    private final int[][] moves = new int[ROWS * COLS + 1][COLS];
+    private final int[][] scores = new int[ROWS * COLS + 1][COLS];
+
+
+
+    /**
+     * Constructs an empty move ordering.
+     *
+     * @param staticOrder 1-based columns in the order to use when no other information distinguishes them
+     */
+    public MoveOrdering(int[] staticOrder) {
+        this.staticOrder = staticOrder;
+    }
+
+    /**
+     * Forgets all killer moves and history scores.
+     */
+    public void clear() {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, 0);
+        }
+        for (int[] sideHistory : history) {
+            Arrays.fill(sideHistory, 0);
+        }
+    }
+
+    /**
+     * Prepares the ordering for the search of the next move of the same game: forgets all killer moves, whose
+     * plies are counted from the old root, and halves the history scores, so earlier cutoffs still order the moves
+     * but recent ones weigh more.
+     */
+    public void age() {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, 0);
+        }
+        for (int[] sideHistory : history) {
+            for (int col = 0; col < sideHistory.length; col++) {
+                sideHistory[col] >>= 1;
+            }
+        }
+    }
+
+
+
+    /**
+     * Orders the legal moves of a node into the buffer of its ply (see {@link #getMoves(int)}).
+     *
+     * @param position the searched position
+     * @param ply      distance of the node from the search root
+     * @param side     side to move
+     * @param ttMove   best move from the transposition table (1-based column) or {@code 0}
+     * @return number of legal moves written to the buffer
+     */
+    public int order(GameState position, int ply, int side, int ttMove) {
+        return order(position, ply, side, ttMove, position.getPlayableCells());
+    }
+
+    /**
+     * Orders the legal moves of a node that place a token into one of the given cells into the buffer of its ply
+     * (see {@link #getMoves(int)}), e.g. only the moves blocking an immediate win of the opponent.
+     *
+     * @param position   the searched position
+     * @param ply        distance of the node from the search root
+     * @param side       side to move
+     * @param ttMove     best move from the transposition table (1-based column) or {@code 0}
+     * @param candidates bitboard of the playable cells to consider
+     * @return number of moves written to the buffer
+     */
+    public int order(GameState position, int ply, int side, int ttMove, long candidates) {
+        int[] plyMoves = moves[ply];
+        int[] plyScores = scores[ply];
+        int[] plyKillers = killers[ply];
+        int count = 0;
+
+        for (int col : staticOrder) {
+            if ((candidates & BitBoard.columnMask(col - 1)) == 0) {
+                continue;
+            }
+
+            int score;
+            if (col == ttMove) {
+                score = TT_MOVE_SCORE;
+            } else if (col == plyKillers[0]) {
+                score = KILLER_SCORE;
+            } else if (col == plyKillers[1]) {
+                score = KILLER_SCORE - 1;
+            } else {
+                score = history[side][col - 1];
+            }
+
+            // insertion sort, stable for equal scores
+            int i = count++;
+            while (i > 0 && plyScores[i - 1] < score) {
+                plyMoves[i] = plyMoves[i - 1];
+                plyScores[i] = plyScores[i - 1];
+                i--;
+            }
+            plyMoves[i] = col;
+            plyScores[i] = score;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the move buffer of a ply as filled by the last {@link #order(GameState, int, int, int)} call
+     * for that ply.
+     * <p>
+     * Warning: This method exposes the internal array directly.
+     *
+     * @param ply distance of the node from the search root
+     * @return ordered 1-based columns
+     */
+    public int[] getMoves(int ply) {
+        return moves[ply];
+    }
+
+    /**
+     * Records a move that caused a beta cutoff: it becomes the first killer move of the ply and its
+     * history score grows by {@code depth * depth}.
+     *
+     * @param ply   distance of the node from the search root
+     * @param side  side that played the move
+     * @param move  1-based column of the move
+     * @param depth remaining depth of the node
+     */
+    public void recordCutoff(int ply, int side, int move, int depth) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        history[side][move - 1] += depth * depth;
+    }
+}
@@ -0,0 +1,312 @@
+package player.ai;
+
+import game.Board;
+import game.GameState;
+import player.PlayerProperty;
+import player.ai.genetic.Genome;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static game.GameProperties.COLS;
+import static game.GameProperties.ROWS;
+
+/**
+ * Precomputed best moves for the first plies of a game, memory-mapped from a binary file.
+ * <p>
+ * {@link #build(Genome, int, int, Path)} searches every position with fewer than a given number of moves to a
+ * fixed depth with the evaluation of one genome. An entry holds all moves that scored best as a column mask, so
+ * {@link #probe(GameState)} keeps breaking ties randomly like the search does. Positions are collected from both
+ * starting sides, since either player may open a game, and entries are keyed by {@link GameState#getKey()}, which
+ * tells apart the same tokens with a different side to move. If the positional score table of the genome is
+ * mirror-symmetric, the evaluation is too, and a position and its mirror image share one entry keyed by
+ * {@link GameState#getCanonicalKey()} with the moves in the canonical orientation; this halves the book.
+ * <p>
+ * File layout: a 20 byte header followed by the entries sorted by key.
+ * <pre>
+ *   magic "C4OB" (4 bytes) | ROWS (1 byte) | COLS (1 byte) | plies (1 byte) | search depth (1 byte) | genome id (8 bytes)
+ *   | mirrored entries shared (1 byte) | format version (1 byte) | reserved (2 bytes)
+ *   entry: key (8 bytes) | best move mask, bit col - 1 (2 bytes)
+ * </pre>
+ * Books of an older format version (keyed without the side to move) are rejected.
+ * A book is only valid for the board size and the genome it was built with (see {@link #matches(Genome)}).
+ *
+ * <p>Thread-safety: an opened book is read-only and may be shared by any number of players and threads.</p>
+ */
+public class OpeningBook {
+
+    private static final int MAGIC = 0x43344F42;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int ENTRY_SIZE = Long.BYTES + Short.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int plies;
+    private final long genomeId;
+    private final boolean symmetric;
+
+
+
+    /**
+     * Opens and memory-maps a book file and validates its header.
+     *
+     * @param path the book file
+     * @throws IOException if the file cannot be read, exceeds 2 GB, was built for another board size
+     *                     or has an older format version
+     */
+    public OpeningBook(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s: invalid opening book length %d", path, length));
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.get(4) != ROWS || buffer.get(5) != COLS) {
+            throw new IOException(String.format("%s: not an opening book for a %dx%d board", path, ROWS, COLS));
+        }
+        if (buffer.get(17) != VERSION) {
+            throw new IOException(String.format("%s: outdated opening book format %d, rebuild it", path, buffer.get(17)));
+        }
+        this.plies = buffer.get(6);
+        this.genomeId = buffer.getLong(8);
+        this.symmetric = buffer.get(16) != 0;
+        this.size = (buffer.capacity() - HEADER_SIZE) / ENTRY_SIZE;
+    }
+
+    /**
+     * Looks up the best move of a position.
+     *
+     * @param position the position, with the side to move set
+     * @return 1-based column of a best move, chosen randomly among equally good ones;
+     *         {@code 0} if the position is not in the book
+     */
+    public int probe(GameState position) {
+        if (position.getMoveCount() >= plies) {
+            return 0;
+        }
+
+        long key = key(position, symmetric);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = buffer.getLong(HEADER_SIZE + mid * ENTRY_SIZE);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                int mask = buffer.getShort(HEADER_SIZE + mid * ENTRY_SIZE + Long.BYTES) & 0xFFFF;
+                if (mask == 0) {
+                    return 0;
+                }
+                int col = randomColumn(mask);
+                if (symmetric && position.isCanonicalMirrored()) {
+                    col = Board.mirrorMove(col);
+                }
+                return position.canPlay(col) ? col : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the book key of a position.
+     *
+     * @param position  the position
+     * @param symmetric whether a position and its mirror image share one entry
+     * @return canonical key if symmetric, otherwise the key of the position; both include the side to move
+     */
+    private static long key(GameState position, boolean symmetric) {
+        return symmetric ? position.getCanonicalKey() : position.getKey();
+    }
+
+    /**
+     * Picks one column of a move mask with equal probability.
+     *
+     * @param mask move mask, bit {@code col - 1} set for every candidate column
+     * @return 1-based column
+     */
+    private static int randomColumn(int mask) {
+        for (int skip = ThreadLocalRandom.current().nextInt(Integer.bitCount(mask)); skip > 0; skip--) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    /**
+     * Checks whether the book was built with the given genome.
+     *
+     * @param genome genome of a player
+     * @return {@code true} if the book's moves were chosen with this genome's evaluation
+     */
+    public boolean matches(Genome genome) {
+        return genome.getId() == genomeId;
+    }
+
+    /**
+     * Returns the number of positions in the book.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of plies covered by the book: positions with fewer moves are included.
+     *
+     * @return number of plies
+     */
+    public int getPlies() {
+        return plies;
+    }
+
+
+
+
+    /**
+     * Checks whether the positional score table of a genome is symmetric to the vertical center axis.
+     *
+     * @param genome the genome
+     * @return {@code true} if every cell scores the same as its mirrored cell
+     */
+    private static boolean isMirrorSymmetric(Genome genome) {
+        byte[][] posScore = genome.posScore();
+        for (byte[] row : posScore) {
+            for (int col = 0; col < COLS / 2; col++) {
+                if (row[col] != row[COLS - 1 - col]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a book file: collects all unfinished positions with fewer than {@code plies} moves after either side
+     * started (one per mirror pair if the genome is mirror-symmetric) and searches them to {@code depth} plies on {@link SearchProperties#SEARCH_THREADS} threads, each
+     * with its own AI players. Progress is printed to standard output.
+     *
+     * @param genome genome whose evaluation chooses the moves
+     * @param plies  positions with fewer moves are included (at most 127)
+     * @param depth  search depth in plies (at most 127)
+     * @param path   the book file to write; an existing file is overwritten
+     * @throws IOException          if the file cannot be written
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the searches
+     */
+    public static void build(Genome genome, int plies, int depth, Path path) throws IOException, InterruptedException {
+        boolean symmetric = isMirrorSymmetric(genome);
+        Map<Long, GameState> positions = new TreeMap<>();
+        GameState start = new GameState();
+        collectPositions(start, plies, symmetric, positions);
+        start.setSideToMove(1);
+        collectPositions(start, plies, symmetric, positions);
+        List<GameState> sorted = new ArrayList<>(positions.values());
+        short[] masks = new short[sorted.size()];
+        System.out.printf("Opening book: searching %d positions to depth %d%n", sorted.size(), depth);
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        Thread[] threads = new Thread[SearchProperties.SEARCH_THREADS];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                Board board = new Board();
+                AIPlayer player1 = new AIPlayer(PlayerProperty.PLAYER1, board, true, genome);
+                AIPlayer player2 = new AIPlayer(PlayerProperty.PLAYER2, board, player1, false, genome);
+                player1.setOpponent(player2);
+                player1.setSearchBudget(depth, 0, 0);
+                player2.setSearchBudget(depth, 0, 0);
+
+                for (int i = next.getAndIncrement(); i < masks.length; i = next.getAndIncrement()) {
+                    GameState position = sorted.get(i);
+                    AIPlayer toMove = position.getSideToMove() == 0 ? player1 : player2;
+                    int mask = toMove.searchBestMoves(position.fork());
+                    masks[i] = (short) (symmetric ? toCanonicalMask(mask, position) : mask);
+                    if (done.incrementAndGet() % 1000 == 0) {
+                        System.out.printf("Opening book: %d / %d%n", done.get(), masks.length);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.put((byte) ROWS);
+            header.put((byte) COLS);
+            header.put((byte) plies);
+            header.put((byte) depth);
+            header.putLong(genome.getId());
+            header.put((byte) (symmetric ? 1 : 0));
+            header.put((byte) VERSION);
+            out.write(header.array());
+            for (int i = 0; i < masks.length; i++) {
+                out.writeLong(key(sorted.get(i), symmetric));
+                out.writeShort(masks[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds the given position and all unfinished positions reachable from it with fewer than {@code plies} moves,
+     * keyed by book key. A position that was already collected (or, if symmetric, whose mirror image was) is
+     * skipped with its subtree, which is a collected subtree or its mirror image.
+     *
+     * @param position  the current position, restored before returning
+     * @param plies     positions with fewer moves are collected
+     * @param symmetric whether a position and its mirror image share one entry
+     * @param positions collected positions by book key
+     */
+    private static void collectPositions(GameState position, int plies, boolean symmetric, Map<Long, GameState> positions) {
+        if (position.getMoveCount() >= plies || position.isFinished()
+                || positions.putIfAbsent(key(position, symmetric), position.fork()) != null) {
+            return;
+        }
+        for (int col = 1; col <= COLS; col++) {
+            if (position.play(col)) {
+                collectPositions(position, plies, symmetric, positions);
+                position.undo(col);
+            }
+        }
+    }
+
+    /**
+     * Translates a move mask of a position into the orientation of its canonical position.
+     *
+     * @param mask     move mask, bit {@code col - 1} set for every move
+     * @param position the position
+     * @return move mask of the canonical position
+     */
+    private static int toCanonicalMask(int mask, GameState position) {
+        if (!position.isCanonicalMirrored()) {
+            return mask;
+        }
+        int mirrored = 0;
+        for (int col = 1; col <= COLS; col++) {
+            if ((mask & (1 << (col - 1))) != 0) {
+                mirrored |= 1 << (Board.mirrorMove(col) - 1);
+            }
+        }
+        return mirrored;
+    }
+}
@@ -0,0 +1,72 @@
+package player.ai;
+
+import game.BitBoard;
+import game.GameState;
+
+/**
+ * Running positional-score sums of both sides for the position searched by an {@link AIPlayer}.
+ * <p>
+ * The accumulator is filled once per search from the root position via {@link #refresh(GameState, byte[][])}.
+ * Afterward every hypothetical move only adds or subtracts one entry of the positional score table
+ * ({@link #add(int, int, int)} / {@link #remove(int, int, int)}), so reading the positional score of a leaf
+ * is O(1) instead of a walk over all tokens.
+ *
+ * <p>Thread-safety: this class is not synchronized; each search uses its own instance.</p>
+ */
+public class PositionalAccumulator {
+
+    private final int[] scores = new int[2];
+    private byte[][] posScore;
+
+
+
+    /**
+     * Recomputes both sums from scratch for the given position using the given positional score table.
+     *
+     * @param position the root position of the search
+     * @param posScore positional score table (rows x cols, row 0 = bottom) of the active genome
+     */
+    public void refresh(GameState position, byte[][] posScore) {
+        this.posScore = posScore;
+        for (int side = 0; side < 2; side++) {
+            int score = 0;
+            for (long stones = position.getStones(side); stones != 0; stones &= stones - 1) {
+                int bit = Long.numberOfTrailingZeros(stones);
+                score += posScore[bit % BitBoard.H1][bit / BitBoard.H1];
+            }
+            this.scores[side] = score;
+        }
+    }
+
+    /**
+     * Accounts for a token placed by a side.
+     *
+     * @param side     side that placed the token
+     * @param row      0-based row of the token
+     * @param innerCol 0-based column of the token
+     */
+    public void add(int side, int row, int innerCol) {
+        scores[side] += posScore[row][innerCol];
+    }
+
+    /**
+     * Accounts for a token removed from the board.
+     *
+     * @param side     side that owned the token
+     * @param row      0-based row of the token
+     * @param innerCol 0-based column of the token
+     */
+    public void remove(int side, int row, int innerCol) {
+        scores[side] -= posScore[row][innerCol];
+    }
+
+    /**
+     * Returns the current positional score sum of a side.
+     *
+     * @param side {@code 0} or {@code 1}
+     * @return sum of the positional scores of the side's tokens
+     */
+    public int getScore(int side) {
+        return scores[side];
+    }
+}
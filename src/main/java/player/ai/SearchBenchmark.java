@@ -0,0 +1,157 @@
+package player.ai;
+
+import game.Board;
+import game.GameState;
+import player.PlayerProperty;
+import player.ai.genetic.Genome;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static game.GameProperties.COLS;
+
+/**
+ * Compares the search modes of {@link AIPlayer} on a fixed position suite (game mode 6).
+ * <p>
+ * The suite consists of {@link SearchProperties#BENCHMARK_POSITIONS} unfinished positions reached by random
+ * moves from {@link SearchProperties#BENCHMARK_SEED}, so every run searches the same positions. Each mode searches
+ * every position to {@link SearchProperties#BENCHMARK_DEPTH} plies without a time budget; the sequential search is
+ * the reference for the speedup of the parallel modes. A shallower sequential pass over the suite warms up the
+ * JIT compiler first. Results are printed to standard output, together with the hit rate of the evaluation cache
+ * if it is enabled (see {@link SearchProperties#EVALUATION_CACHE_MB}).
+ * <p>
+ * This class cannot be instantiated.
+ */
+public class SearchBenchmark {
+
+    private static final String[] MODE_NAMES = {"sequential", "parallel root", "Lazy SMP"};
+
+
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private SearchBenchmark() {}
+
+    /**
+     * Runs the benchmark and prints time, node count, node rate and speedup of every search mode.
+     *
+     * @param genome genome controlling evaluation heuristics of the searching players
+     */
+    public static void run(Genome genome) {
+        List<GameState> suite = createSuite();
+        System.out.printf("Search benchmark: %d positions, depth %d, %d threads%n",
+                suite.size(), SearchProperties.BENCHMARK_DEPTH, SearchProperties.SEARCH_THREADS);
+
+        Board warmUpBoard = new Board();
+        searchSuite(suite, warmUpBoard,
+                createPlayers(warmUpBoard, genome, AIPlayer.SEQUENTIAL_SEARCH, Math.max(1, SearchProperties.BENCHMARK_DEPTH - 2)));
+
+        double referenceMillis = 0;
+        for (int mode = AIPlayer.SEQUENTIAL_SEARCH; mode <= AIPlayer.LAZY_SMP_SEARCH; mode++) {
+            Board board = new Board();
+            AIPlayer[] players = createPlayers(board, genome, mode, SearchProperties.BENCHMARK_DEPTH);
+            long start = System.nanoTime();
+            long nodes = searchSuite(suite, board, players);
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (mode == AIPlayer.SEQUENTIAL_SEARCH) {
+                referenceMillis = millis;
+            }
+            System.out.printf("%-14s %10.0f ms %14d nodes %10.0f knps   speedup %.2f%n",
+                    MODE_NAMES[mode], millis, nodes, nodes / millis, referenceMillis / millis);
+            printEvaluationCacheHitRate(players);
+        }
+    }
+
+    /**
+     * Creates the two players of a benchmark run.
+     *
+     * @param board  board shared by both players
+     * @param genome genome of both players
+     * @param mode   search mode, see {@link AIPlayer#setSearchMode(int)}
+     * @param depth  search depth in plies
+     * @return player 1 and player 2
+     */
+    private static AIPlayer[] createPlayers(Board board, Genome genome, int mode, int depth) {
+        AIPlayer player1 = new AIPlayer(PlayerProperty.PLAYER1, board, true, genome);
+        AIPlayer player2 = new AIPlayer(PlayerProperty.PLAYER2, board, player1, false, genome);
+        player1.setOpponent(player2);
+        for (AIPlayer player : new AIPlayer[]{player1, player2}) {
+            player.setSearchBudget(depth, 0, 0);
+            player.setSearchMode(mode);
+        }
+        return new AIPlayer[]{player1, player2};
+    }
+
+    /**
+     * Searches every position of the suite once, clearing the search state of the players before each position
+     * (see {@link AIPlayer#clearTokens()}).
+     *
+     * @param suite   the positions
+     * @param board   board of the players
+     * @param players player 1 and player 2, see {@link #createPlayers(Board, Genome, int, int)}
+     * @return total number of searched nodes
+     */
+    private static long searchSuite(List<GameState> suite, Board board, AIPlayer[] players) {
+        AIPlayer player1 = players[0];
+        AIPlayer player2 = players[1];
+
+        long nodes = 0;
+        for (GameState position : suite) {
+            board.resetBoard();
+            player1.clearTokens();
+            player2.clearTokens();
+            for (int i = 0; i < position.getMoveCount(); i++) {
+                board.placeToken(position.getMove(i), i % 2 == 0 ? player1 : player2);
+            }
+
+            AIPlayer toMove = position.getMoveCount() % 2 == 0 ? player1 : player2;
+            toMove.calculateMove();
+            nodes += toMove.getSearchedNodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * Prints the combined hit rate of the evaluation caches of the players, if they have one.
+     *
+     * @param players the players of a benchmark run
+     */
+    private static void printEvaluationCacheHitRate(AIPlayer[] players) {
+        long hits = 0;
+        long probes = 0;
+        for (AIPlayer player : players) {
+            EvaluationCache cache = player.getEvaluationCache();
+            if (cache != null) {
+                hits += cache.getHits();
+                probes += cache.getHits() + cache.getMisses();
+            }
+        }
+        if (probes > 0) {
+            System.out.printf("%-14s evaluation cache hit rate %.1f %%%n", "", 100.0 * hits / probes);
+        }
+    }
+
+    /**
+     * Generates the position suite: up to 15 random moves from the empty board, positions in which
+     * the game has ended are skipped.
+     *
+     * @return unfinished positions
+     */
+    private static List<GameState> createSuite() {
+        Random random = new Random(SearchProperties.BENCHMARK_SEED);
+        List<GameState> suite = new ArrayList<>(SearchProperties.BENCHMARK_POSITIONS);
+        while (suite.size() < SearchProperties.BENCHMARK_POSITIONS) {
+            GameState position = new GameState();
+            int moves = random.nextInt(16);
+            for (int i = 0; i < moves && !position.isFinished(); i++) {
+                position.play(1 + random.nextInt(COLS));
+            }
+            if (!position.isFinished()) {
+                suite.add(position);
+            }
+        }
+        return suite;
+    }
+}
@@ -0,0 +1,43 @@
+package player.ai;
+
+public class SearchProperties {
+    //Maximum search depth in plies (including the AI's own move) without a time budget
+    public static final int SEARCH_DEPTH = 9;
+    //Per-move budget in human-vs-AI games (modes 1 and 5): iterative deepening up to the end of the game until the time runs out
+    public static final long MOVE_TIME_MILLIS = 1000;
+    public static final long MOVE_NODE_BUDGET = 0; //0 = no limit
+    //Search mode in human-vs-AI games (modes 1 and 5), see AIPlayer: Sequential: 0, ParallelRoot: 1, LazySMP: 2
+    public static final int SEARCH_MODE = 1;
+    //Human-vs-AI games (modes 1 and 5): search the human player's replies in the background while waiting for its move
+    public static final boolean PONDER = true;
+    //Size of the thread pool shared by all parallel searches, 1 = always search sequentially
+    public static final int SEARCH_THREADS = Runtime.getRuntime().availableProcessors();
+
+    //Search benchmark (game mode 6): every search mode searches the same seeded positions to a fixed depth
+    public static final int BENCHMARK_POSITIONS = 40;
+    public static final int BENCHMARK_DEPTH = 12;
+    public static final long BENCHMARK_SEED = 20240501;
+
+    //Opening book, built for the fittest genome in game mode 7 and used by AI players with that genome (except in training)
+    public static final String OPENING_BOOK_FILE = "openingBook.bin";
+    public static final int BOOK_PLIES = 8; //positions with fewer moves are in the book
+    public static final int BOOK_DEPTH = 12;
+
+    //Positions with at most this many empty cells are solved exactly instead of searched (0 = never)
+    public static final int ENDGAME_EMPTY_CELLS = 20;
+
+    //Principal variation search: null windows for all but the first move, aspiration windows at the root
+    public static final boolean PRINCIPAL_VARIATION_SEARCH = true;
+    //Half width of the root window around the score of the previous iteration
+    public static final int ASPIRATION_WINDOW = 2000;
+
+    //Memory of the transposition table per AI player in MB, rounded down to a power-of-two number of entries
+    public static final int TRANSPOSITION_TABLE_MB = 16;
+    //Training runs hundreds of games in parallel, each with two AI players; every training thread reuses its tables
+    public static final int TRAINING_TRANSPOSITION_TABLE_MB = 1;
+
+    //Memory of the leaf evaluation cache per AI player in MB, 0 = evaluate every leaf
+    //Off by default: the evaluation is updated incrementally and cheaper than a cache lookup
+    public static final int EVALUATION_CACHE_MB = 0;
+    public static final int TRAINING_EVALUATION_CACHE_MB = 0;
+}
@@ -0,0 +1,460 @@
+package player.ai;
+
+import game.BitBoard;
+import game.GameState;
+import player.ai.genetic.Genome;
+
+/**
+ * Search state of one thread of an {@link AIPlayer}: a private copy of the searched position, the positional
+ * score accumulator and move ordering that belong to it, and the recursive negamax search working on them.
+ * <p>
+ * All workers of a player share its {@link TranspositionTable}, its genome and its search budget. The sequential
+ * search uses a single worker; the parallel root search searches every root move on its own worker holding a
+ * fork of the position; with Lazy SMP helper workers search the whole root position on forks and only share
+ * their results through the table.
+ *
+ * <p>Thread-safety: this class is not synchronized. A worker is used by one thread at a time.</p>
+ */
+public class SearchWorker {
+
+    /**
+     * Bound of all search scores. Unlike {@link Integer#MIN_VALUE} its negation is representable.
+     */
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    /**
+     * The search budget is checked every {@code BUDGET_CHECK_INTERVAL + 1} nodes.
+     */
+    private static final int BUDGET_CHECK_INTERVAL = 1023;
+
+    private final AIPlayer player;
+    private final PositionalAccumulator accumulator = new PositionalAccumulator();
+    private final MoveOrdering moveOrdering;
+
+    private GameState position;
+    private Genome genome;
+    private TranspositionTable transpositionTable;
+    private EvaluationCache evaluationCache;
+    private long genomeId;
+    private int ownSide;
+    private int opponentSide;
+    private int rootMoveCount;
+    private long nodes;
+    private volatile boolean stopped;
+
+
+
+    /**
+     * Constructs a worker without a position.
+     *
+     * @param player      the player this worker searches for; supplies the search budget
+     * @param staticOrder 1-based columns in the order to use when no other information distinguishes them
+     */
+    public SearchWorker(AIPlayer player, int[] staticOrder) {
+        this.player = player;
+        this.moveOrdering = new MoveOrdering(staticOrder);
+    }
+
+    /**
+     * Prepares the worker for a new game: forgets killer moves and history scores and resets
+     * the node counter and the stop request.
+     */
+    public void clear() {
+        moveOrdering.clear();
+        nodes = 0;
+        stopped = false;
+    }
+
+    /**
+     * Prepares the worker for the search of the next move of the same game: ages the move ordering
+     * (see {@link MoveOrdering#age()}) and resets the node counter and the stop request.
+     */
+    public void startSearch() {
+        moveOrdering.age();
+        nodes = 0;
+        stopped = false;
+    }
+
+    /**
+     * Requests this worker to stop. Its running search returns at once without storing anything, as if the
+     * search budget was exhausted.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Returns whether this worker has to stop searching, either because {@link #stop()} was called or
+     * because the search of the player was aborted.
+     *
+     * @return {@code true} if the current search is to be abandoned
+     */
+    public boolean isStopped() {
+        return stopped || player.isSearchAborted();
+    }
+
+    /**
+     * Sets the position to search. The worker plays and takes back moves on the given instance, which
+     * must not be used by any other thread during the search.
+     *
+     * @param position           the root position, with the side to move set
+     * @param genome             genome controlling evaluation heuristics
+     * @param transpositionTable table shared by all workers of the player
+     * @param evaluationCache    leaf evaluation cache shared by all workers of the player, or {@code null}
+     * @param ownSide            side of the AI, evaluation scores are from its point of view
+     */
+    public void setPosition(GameState position, Genome genome, TranspositionTable transpositionTable,
+                            EvaluationCache evaluationCache, int ownSide) {
+        this.position = position;
+        this.genome = genome;
+        this.transpositionTable = transpositionTable;
+        this.evaluationCache = evaluationCache;
+        this.genomeId = evaluationCache != null ? genome.getId() : 0;
+        this.ownSide = ownSide;
+        this.opponentSide = 1 - ownSide;
+        this.rootMoveCount = position.getMoveCount();
+        this.accumulator.refresh(position, genome.posScore());
+    }
+
+
+
+    /**
+     * Orders the legal moves of the root position (see {@link MoveOrdering}).
+     *
+     * @param previousMove best move of the previous iteration or -1
+     * @return number of legal moves, see {@link #getRootMoves()}
+     */
+    public int orderRootMoves(int previousMove) {
+        return moveOrdering.order(position, 0, ownSide, Math.max(previousMove, 0));
+    }
+
+    /**
+     * Returns the root moves as ordered by the last {@link #orderRootMoves(int)} call.
+     * <p>
+     * Warning: This method exposes the internal array directly.
+     *
+     * @return ordered 1-based columns
+     */
+    public int[] getRootMoves() {
+        return moveOrdering.getMoves(0);
+    }
+
+    /**
+     * Searches all root moves with an open window, the first one fully and the others with null windows in
+     * principal variation search mode. This is the iteration of a Lazy SMP helper, whose results reach the
+     * other workers through the transposition table only.
+     *
+     * @param depth        search depth in plies including the root move
+     * @param previousMove best move of the previous iteration or -1
+     * @return best 1-based column, or -1 if there is no legal move or the worker was stopped
+     */
+    public int searchRoot(int depth, int previousMove) {
+        int count = orderRootMoves(previousMove);
+        int[] moves = getRootMoves();
+        int bestMove = -1;
+        int alpha = -INFINITY;
+        for (int i = 0; i < count; i++) {
+            int value;
+            if (SearchProperties.PRINCIPAL_VARIATION_SEARCH && i > 0) {
+                value = searchMove(moves[i], depth, alpha, alpha + 1);
+                if (value > alpha && !isStopped()) {
+                    value = searchMove(moves[i], depth, alpha, INFINITY);
+                }
+            } else {
+                value = searchMove(moves[i], depth, alpha, INFINITY);
+            }
+            if (isStopped()) {
+                return -1;
+            }
+            if (value > alpha || bestMove == -1) {
+                alpha = value;
+                bestMove = moves[i];
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Searches one root move of the AI with the given window.
+     *
+     * @param col   1-based column of the move
+     * @param depth search depth in plies including the root move
+     * @param alpha lower bound of the window
+     * @param beta  upper bound of the window
+     * @return score of the move from the AI's point of view, {@code 0} if the search was aborted
+     */
+    public int searchMove(int col, int depth, int alpha, int beta) {
+        playMove(col, ownSide);
+        int value = -negamax(depth - 1, -beta, -alpha);
+        undoMove(col);
+        return value;
+    }
+
+    /**
+     * Recursive negamax search with alpha-beta pruning: scores are from the point of view of the side to
+     * move, a child's score is negated for its parent.
+     * <p>
+     * Inner nodes consult the transposition table first: a stored result searched to the same remaining depth
+     * either answers the node directly or narrows the window. Leaves are scored as their evaluation times
+     * {@code remaining depth + 1}, so games that end sooner weigh more; results of another remaining depth are on
+     * a different scale and only supply the best move for move ordering. Every searched inner node stores its result
+     * together with the bound type derived from the window and the best move. Stored scores are from the
+     * point of view of the side to move, which is part of the position key.
+     * <p>
+     * Moves are tried in the order given by {@link MoveOrdering}: the stored best move first, then the
+     * killer moves of the ply, then the remaining columns by history score. Beta cutoffs update the killer
+     * moves and the history. In principal variation search mode (see {@link SearchProperties}) only the first
+     * move is searched with the full window; later moves get a null window {@code (alpha, alpha + 1)} that
+     * merely proves them worse, and are searched again with the full window if they turn out better.
+     * <p>
+     * Two tactical shortcuts come before the table: if the side to move can win at once, only its winning moves
+     * are scored (see {@link #searchWinningMoves(long, int, int, int)}); if the opponent threatens to win with its
+     * next move, only the blocking moves are searched, as every other move loses at once.
+     * <p>
+     * Once the search budget of the player is exhausted or the worker is stopped the search is aborted: all nodes
+     * return {@code 0} immediately and nothing is stored, the caller discards the iteration.
+     *
+     * @param depth remaining depth to search (0 = evaluate leaf)
+     * @param alpha alpha value for pruning
+     * @param beta  beta value for pruning
+     * @return evaluation integer score for the current subtree from the point of view of the side to move
+     */
+    private int negamax(int depth, int alpha, int beta) {
+        if ((++nodes & BUDGET_CHECK_INTERVAL) == 0 && player.isBudgetExhausted()) {
+            player.abortSearch();
+        }
+        if (isStopped()) {
+            return 0;
+        }
+        int side = position.getSideToMove();
+        if (depth == 0 || position.isFinished()) {
+            int eval = evaluateLeaf() * (depth + 1);
+            return side == ownSide ? eval : -eval;
+        }
+
+        long playable = position.getPlayableCells();
+        long wins = position.getThreatCells(side) & playable;
+        if (wins != 0) {
+            return searchWinningMoves(wins, depth, alpha, beta);
+        }
+        long forced = position.getThreatCells(1 - side) & playable;
+
+        long key = position.getKey();
+        long entry = transpositionTable.probe(key);
+        if (entry != 0 && TranspositionTable.depth(entry) == depth) {
+            int score = TranspositionTable.score(entry);
+            switch (TranspositionTable.bound(entry)) {
+                case TranspositionTable.EXACT -> {
+                    return score;
+                }
+                case TranspositionTable.LOWER_BOUND -> alpha = Math.max(alpha, score);
+                case TranspositionTable.UPPER_BOUND -> beta = Math.min(beta, score);
+            }
+            if (beta <= alpha) {
+                return score;
+            }
+        }
+        int windowAlpha = alpha;
+        int windowBeta = beta;
+        int bestMove = 0;
+        int bestEval = -INFINITY;
+        int ply = position.getMoveCount() - rootMoveCount;
+
+        int count = moveOrdering.order(position, ply, side, TranspositionTable.move(entry), forced != 0 ? forced : playable);
+        int[] moves = moveOrdering.getMoves(ply);
+        for (int i = 0; i < count; i++) {
+            playMove(moves[i], side);
+            int eval;
+            if (SearchProperties.PRINCIPAL_VARIATION_SEARCH && i > 0) {
+                eval = -negamax(depth - 1, -alpha - 1, -alpha);
+                if (eval > alpha && eval < beta && !isStopped()) {
+                    eval = -negamax(depth - 1, -beta, -alpha);
+                }
+            } else {
+                eval = -negamax(depth - 1, -beta, -alpha);
+            }
+            undoMove(moves[i]);
+            if (isStopped()) {
+                return 0;
+            }
+
+            if (eval > bestEval || bestMove == 0) {
+                bestEval = eval;
+                bestMove = moves[i];
+            }
+            alpha = Math.max(alpha, bestEval);
+            if (beta <= alpha) {
+                moveOrdering.recordCutoff(ply, side, moves[i], depth);
+                break;
+            }
+        }
+
+        int bound;
+        if (bestEval <= windowAlpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (bestEval >= windowBeta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        transpositionTable.store(key, depth, bound, bestEval, bestMove);
+        return bestEval;
+    }
+
+
+
+    /**
+     * Scores a node in which the side to move can win at once by its winning moves only: each of them ends the
+     * game and is evaluated as a leaf, the other moves are not searched. Nothing is stored in the table.
+     *
+     * @param wins  bitboard of the playable cells that win for the side to move
+     * @param depth remaining depth of the node
+     * @param alpha alpha value for pruning
+     * @param beta  beta value for pruning
+     * @return score of the best winning move from the point of view of the side to move
+     */
+    private int searchWinningMoves(long wins, int depth, int alpha, int beta) {
+        int side = position.getSideToMove();
+        int bestEval = -INFINITY;
+        for (; wins != 0; wins &= wins - 1) {
+            int col = Long.numberOfTrailingZeros(wins) / BitBoard.H1 + 1;
+            playMove(col, side);
+            int eval = -negamax(depth - 1, -beta, -alpha);
+            undoMove(col);
+            bestEval = Math.max(bestEval, eval);
+        }
+        return bestEval;
+    }
+
+    /**
+     * Plays a hypothetical move on the searched position and adds the placed token to the
+     * positional score accumulator.
+     *
+     * @param col  1-based column index
+     * @param side side placing the token
+     * @return {@code true} if the move was legal and has been played
+     */
+    private boolean playMove(int col, int side) {
+        if (!position.play(col, side)) {
+            return false;
+        }
+        accumulator.add(side, position.getHeight(col) - 1, col - 1);
+        return true;
+    }
+
+    /**
+     * Takes back the last hypothetical move and removes its token from the positional score accumulator.
+     *
+     * @param col 1-based column index of the last move
+     */
+    private void undoMove(int col) {
+        int row = position.getHeight(col) - 1;
+        accumulator.remove(position.getOwner(row, col - 1), row, col - 1);
+        position.undo(col);
+    }
+
+
+
+    /**
+     * Returns the evaluation of the current position (see {@link #evaluateBoard()}), looked up in the evaluation
+     * cache of the player first if it has one.
+     *
+     * @return integer evaluation score (higher = better for the AI)
+     */
+    private int evaluateLeaf() {
+        if (evaluationCache == null) {
+            return evaluateBoard();
+        }
+        long key = position.getHash() ^ genomeId;
+        long cached = evaluationCache.probe(key);
+        if (cached != EvaluationCache.MISS) {
+            return (int) cached;
+        }
+        int evaluation = evaluateBoard();
+        evaluationCache.store(key, evaluation);
+        return evaluation;
+    }
+
+    /**
+     * Evaluates the current position from the AI's perspective using the genome-provided heuristics.
+     * The method:
+     * <ol>
+     *   <li>reads the positional score sums of both players from the accumulator and weights them by genome parameters</li>
+     *   <li>adds major/minor threat contributions for both players</li>
+     *   <li>if the game is finished, adds win/loss weights</li>
+     * </ol>
+     *
+     * @return integer evaluation score (higher = better for the AI)
+     */
+    private int evaluateBoard() {
+        int evaluationScore = 0;
+
+        evaluationScore += evalPosScore(ownSide) * genome.posScoreWeightPlayer();
+        evaluationScore += evalPosScore(opponentSide) * genome.posScoreWeightOpponent();
+
+        evaluationScore += evalMajorThreats(ownSide) * genome.majorWeightPlayer();
+        evaluationScore += evalMajorThreats(opponentSide) * genome.majorWeightOpponent();
+
+        evaluationScore += evalMinorThreats(ownSide) * genome.minorWeightPlayer();
+        evaluationScore += evalMinorThreats(opponentSide) * genome.minorWeightOpponent();
+
+        if (position.isFinished() && position.getWinner() != GameState.NO_SIDE) {
+            evaluationScore += evalGameWon(ownSide) * genome.winWeightPlayer();
+            evaluationScore += evalGameWon(opponentSide) * genome.winWeightOpponent();
+        }
+
+        return evaluationScore;
+    }
+
+    /**
+     * Returns the aggregate positional score for all tokens owned by the given side,
+     * as maintained by the {@link PositionalAccumulator}.
+     *
+     * @param side side whose tokens are scored
+     * @return sum of positional scores for the side's tokens
+     */
+    private int evalPosScore(int side) {
+        return accumulator.getScore(side);
+    }
+
+    /**
+     * Returns the genome-encoded value awarded when the specified side is the winner.
+     *
+     * @param side side to evaluate (compared to {@link GameState#getWinner()})
+     * @return genome.winEvaluation() if the side has won; otherwise 0
+     */
+    private int evalGameWon(int side) {
+        return position.getWinner() == side ? genome.winEvaluation() : 0;
+    }
+
+    /**
+     * Proxy to {@link GameState#getMajorThreats(int)} for the given side.
+     *
+     * @param side side to evaluate
+     * @return major threat count from the board heuristic
+     */
+    private int evalMajorThreats(int side) {
+        return position.getMajorThreats(side);
+    }
+
+    /**
+     * Proxy to {@link GameState#getMinorThreats(int)} for the given side.
+     *
+     * @param side side to evaluate
+     * @return minor threat count from the board heuristic
+     */
+    private int evalMinorThreats(int side) {
+        return position.getMinorThreats(side);
+    }
+
+
+
+    /**
+     * Returns the number of nodes this worker visited since the last {@link #clear()}.
+     *
+     * @return node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,227 @@
+package player.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size transposition table storing search results by position key (see {@link game.GameState#getKey()}).
+ * <p>
+ * The table holds a power-of-two number of entries, the slot of a position is selected by the low bits of its
+ * key. Each entry consists of a packed {@code long} with
+ * <ul>
+ *     <li>score (bits 0 .. 31)</li>
+ *     <li>searched depth (bits 32 .. 39)</li>
+ *     <li>bound type (bits 40 .. 41, one of {@link #EXACT}, {@link #LOWER_BOUND}, {@link #UPPER_BOUND})</li>
+ *     <li>best move as 1-based column (bits 48 .. 55, {@code 0} if none)</li>
+ *     <li>generation of the search that stored it (bits 56 .. 63)</li>
+ * </ul>
+ * and the position key XOR the packed entry. Since every bound type is non-zero, a packed entry of {@code 0}
+ * means "no entry". A new result replaces the stored one if it belongs to the same position, was searched
+ * at least as deep (depth-preferred) or the stored one is left from an earlier search (see {@link #newSearch()}).
+ * Probes are counted as hits and misses.
+ * <p>
+ * Scores only depend on the position and its remaining depth, not on the root of the search, so the entries
+ * stay valid for the following moves of a game as long as the genome and side of the AI do not change.
+ *
+ * <p>Thread-safety: this class is not synchronized, but the search workers of an {@link AIPlayer} may share one
+ * instance without locking. Two threads writing the same slot can leave the key of one result next to the entry
+ * of the other; since the stored key is XORed with its entry, such a torn slot no longer verifies against any
+ * key and reads as a miss. {@link #clear()} must not run concurrently with a search.</p>
+ */
+public class TranspositionTable {
+
+    /**
+     * The score is the exact value of the position.
+     */
+    public static final int EXACT = 1;
+
+    /**
+     * The search failed high: the value of the position is at least the score.
+     */
+    public static final int LOWER_BOUND = 2;
+
+    /**
+     * The search failed low: the value of the position is at most the score.
+     */
+    public static final int UPPER_BOUND = 3;
+
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int indexMask;
+    private int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+
+
+    /**
+     * Constructs an empty table using at most the given amount of memory.
+     *
+     * @param megabytes memory budget in MB (at least 1); the entry count is rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        long bytes = Math.max(1, megabytes) * (1L << 20);
+        this.keys = new long[Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE, bytes / ENTRY_BYTES))];
+        this.entries = new long[keys.length];
+        this.indexMask = keys.length - 1;
+    }
+
+    /**
+     * Removes all entries and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, 0L);
+        resetStatistics();
+    }
+
+    /**
+     * Starts a new generation of entries, e.g. for the search of the next move of a game. The entries of earlier
+     * generations can still be probed, but are replaced by any new result of the current one.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key position key
+     * @return packed entry of the position or {@code 0} if the table holds no entry for it
+     */
+    public long probe(long key) {
+        int index = (int) key & indexMask;
+        long entry = entries[index];
+        if (entry != 0 && (keys[index] ^ entry) == key) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return 0L;
+    }
+
+    /**
+     * Stores a search result. It replaces the current entry of its slot if that entry belongs to the
+     * same position, is empty, was searched less deep or was stored by an earlier generation.
+     *
+     * @param key   position key
+     * @param depth remaining depth the position was searched with
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     * @param score search result
+     * @param move  best move found (1-based column) or {@code 0}
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = (int) key & indexMask;
+        long current = entries[index];
+        if (current != 0 && (keys[index] ^ current) != key && generation(current) == generation && depth(current) > depth) {
+            return;
+        }
+        long entry = (score & 0xFFFFFFFFL) | ((long) depth << 32) | ((long) bound << 40) | ((long) move << 48)
+                | ((long) generation << 56);
+        keys[index] = key ^ entry;
+        entries[index] = entry;
+    }
+
+
+
+    /**
+     * Extracts the score of a packed entry.
+     *
+     * @param entry packed entry returned by {@link #probe(long)}
+     * @return stored score
+     */
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Extracts the searched depth of a packed entry.
+     *
+     * @param entry packed entry returned by {@link #probe(long)}
+     * @return remaining depth the stored score was searched with
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    /**
+     * Extracts the bound type of a packed entry.
+     *
+     * @param entry packed entry returned by {@link #probe(long)}
+     * @return {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /**
+     * Extracts the best move of a packed entry.
+     *
+     * @param entry packed entry returned by {@link #probe(long)}
+     * @return 1-based column or {@code 0} if no move was stored
+     */
+    public static int move(long entry) {
+        return (int) (entry >>> 48) & 0xFF;
+    }
+
+    /**
+     * Extracts the generation of a packed entry.
+     *
+     * @param entry packed entry
+     * @return generation of the search that stored the entry
+     */
+    private static int generation(long entry) {
+        return (int) (entry >>> 56) & 0xFF;
+    }
+
+
+
+    /**
+     * Returns the number of entries the table can hold.
+     *
+     * @return table size (power of two)
+     */
+    public int getSize() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the number of successful probes since the last reset.
+     *
+     * @return hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of unsuccessful probes since the last reset.
+     *
+     * @return miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the share of successful probes since the last reset.
+     *
+     * @return hits / (hits + misses), or {@code 0} if nothing was probed
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long probes = hitCount + misses.sum();
+        return probes == 0 ? 0 : (double) hitCount / probes;
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+}
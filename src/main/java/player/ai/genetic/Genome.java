@@ -4,6 +4,11 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.Random;
 
+import static game.GameProperties.COLS;
+import static game.GameProperties.DEFAULT_COLS;
+import static game.GameProperties.DEFAULT_ROWS;
+import static game.GameProperties.ROWS;
+
 /**
  * Represents a fixed-length genetic encoding used by AI players.
  * <p>
@@ -14,10 +19,15 @@ import java.util.Random;
  * <p>
  * Instances carry a monotonically increasing population identifier useful for
  * debugging and tracing individuals across evolutionary operations.
+ * <p>
+ * The genome length depends on the board size: 8 weights, one positional score per cell and the win
+ * evaluation parameter. Genomes of the default 6x7 board are rescaled when used on another board size.
  */
 public class Genome {
 
-    private final static int genomeLength = 51;
+    private final static int posScoreOffset = 8;
+    private final static int genomeLength = posScoreOffset + ROWS * COLS + 1;
+    private final static int defaultGenomeLength = posScoreOffset + DEFAULT_ROWS * DEFAULT_COLS + 1;
 
     private final byte[] genome;
     private byte[][] posScoreFirst;
@@ -41,12 +51,13 @@ public class Genome {
     /**
      * Constructs a new {@code Genome} by copying the provided byte array.
      * The source array is defensively copied to ensure the internal representation
-     * uses exactly {@link #genomeLength} bytes.
+     * uses exactly {@link #genomeLength} bytes. A genome of the default 6x7 board is
+     * rescaled to the configured board size, see {@link #adaptGenome(byte[])}.
      *
      * @param genome the source genome bytes; only the first {@code genomeLength} bytes are used
      */
     public Genome(byte[] genome) {
-        this.genome = Arrays.copyOf(genome, genomeLength);
+        this.genome = adaptGenome(genome);
         populationID = populationSize++;
         updatePosScore();
     }
@@ -105,6 +116,20 @@ public class Genome {
         return true;
     }
 
+    /**
+     * Computes a 64-bit identity of the genome (FNV-1a hash of its bytes), e.g. to tell whether stored search
+     * results were computed with this genome's evaluation. Mutation changes the identity.
+     *
+     * @return genome identity
+     */
+    public long getId() {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : this.genome) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
 
 
     /**
@@ -120,15 +145,44 @@ public class Genome {
         return genome;
     }
 
+    /**
+     * Copies source genome bytes into a genome of the configured length.
+     * <p>
+     * If the board size differs from the default and the source has the length of a default 6x7 genome,
+     * the weights and the win evaluation parameter are kept and the positional score table is rescaled to
+     * the configured board by nearest-neighbour sampling. Any other source is copied as is, truncated or
+     * padded with zeros.
+     *
+     * @param source the source genome bytes
+     * @return genome bytes of length {@link #genomeLength}
+     */
+    private static byte[] adaptGenome(byte[] source) {
+        if (source.length == genomeLength || source.length != defaultGenomeLength) {
+            return Arrays.copyOf(source, genomeLength);
+        }
+
+        byte[] genome = new byte[genomeLength];
+        System.arraycopy(source, 0, genome, 0, posScoreOffset);
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLS; col++) {
+                int sourceRow = row * DEFAULT_ROWS / ROWS;
+                int sourceCol = col * DEFAULT_COLS / COLS;
+                genome[posScoreOffset + row * COLS + col] = source[posScoreOffset + sourceRow * DEFAULT_COLS + sourceCol];
+            }
+        }
+        genome[genomeLength - 1] = source[defaultGenomeLength - 1];
+        return genome;
+    }
+
     /**
      * Extracts and updates the cached positional score table {@link #posScoreFirst} from the raw genome.
      * <p>
-     * Extraction rule: starting at genome index 8, fill a 6x7 byte matrix row-major.
+     * Extraction rule: starting at genome index 8, fill a ROWS x COLS byte matrix row-major.
      * The method overwrites the internal {@code posScoreFirst} reference.
      */
     private void updatePosScore() {
-        byte[][] posScoreFirst = new byte[6][7];
-        int counter = 8;
+        byte[][] posScoreFirst = new byte[ROWS][COLS];
+        int counter = posScoreOffset;
         for (int i = 0; i < posScoreFirst.length; i++) {
             for (int j = 0; j < posScoreFirst[i].length; j++) {
                 posScoreFirst[i][j] = genome[counter];
@@ -245,13 +299,13 @@ public class Genome {
      * @return byte value stored at genome index {@code genomeLength - 1}
      */
     public byte winEvaluation() {
-        return genome[50];
+        return genome[genomeLength - 1];
     }
 
     /**
      * Returns the cached positional score table extracted from the genome.
      *
-     * @return a 6x7 byte matrix representing positional scores
+     * @return a ROWS x COLS byte matrix representing positional scores
      */
     public byte[][] posScore() {
         return this.posScoreFirst;